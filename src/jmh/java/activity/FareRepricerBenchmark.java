@@ -0,0 +1,59 @@
+package activity;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FareRepricerBenchmark {
+
+    @Param({"100000", "10000000"})
+    int rows;
+
+    private double[] currentPrices;
+    private int[] previousSales;
+    private int[] passengers;
+    private long[] hoursToDeparture;
+    private int[] rewardPoints;
+    private double[] totalPrices;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        currentPrices = new double[rows];
+        previousSales = new int[rows];
+        passengers = new int[rows];
+        hoursToDeparture = new long[rows];
+        rewardPoints = new int[rows];
+        totalPrices = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            currentPrices[i] = 50 + random.nextDouble() * 900;
+            previousSales[i] = random.nextInt(400);
+            passengers[i] = 1 + random.nextInt(9);
+            hoursToDeparture[i] = random.nextInt(500);
+            rewardPoints[i] = random.nextBoolean() ? 0 : random.nextInt(5000);
+        }
+    }
+
+    @Benchmark
+    public double[] reprice() {
+        FareRepricer.reprice(currentPrices, previousSales, passengers, hoursToDeparture, rewardPoints, totalPrices);
+        return totalPrices;
+    }
+}
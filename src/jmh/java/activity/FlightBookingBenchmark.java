@@ -0,0 +1,75 @@
+package activity;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlightBookingBenchmark {
+
+    private static final int REQUESTS = 1024;
+
+    @Param({"standard", "lastMinute", "group", "rewardPoints", "cancellation", "soldOut", "mixed"})
+    String requestMix;
+
+    private final FlightBookingSystem flightBookingSystem = new FlightBookingSystem();
+    private final int[] passengers = new int[REQUESTS];
+    private final int[] availableSeats = new int[REQUESTS];
+    private final int[] rewardPoints = new int[REQUESTS];
+    private final boolean[] cancellations = new boolean[REQUESTS];
+    private final LocalDateTime[] departureTimes = new LocalDateTime[REQUESTS];
+    private final long[] departureEpochMinutes = new long[REQUESTS];
+    private final LocalDateTime bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private final long bookingEpochMinute = bookingTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    private final FlightBookingSystem.BookingResult result = new FlightBookingSystem.BookingResult();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] mixes = {"standard", "lastMinute", "group", "rewardPoints", "cancellation", "soldOut"};
+        for (int i = 0; i < REQUESTS; i++) {
+            String mix = requestMix.equals("mixed") ? mixes[random.nextInt(mixes.length)] : requestMix;
+            passengers[i] = mix.equals("group") ? 5 + random.nextInt(5) : 1 + random.nextInt(4);
+            availableSeats[i] = mix.equals("soldOut") ? passengers[i] - 1 : 200;
+            rewardPoints[i] = mix.equals("rewardPoints") ? 100 + random.nextInt(1000) : 0;
+            cancellations[i] = mix.equals("cancellation");
+            departureTimes[i] = bookingTime.plusHours(mix.equals("lastMinute") ? random.nextInt(24) : 24 + random.nextInt(500));
+            departureEpochMinutes[i] = departureTimes[i].toEpochSecond(ZoneOffset.UTC) / 60;
+        }
+    }
+
+    @Benchmark
+    public FlightBookingSystem.BookingResult bookFlight() {
+        int i = next++ & (REQUESTS - 1);
+        return flightBookingSystem.bookFlight(passengers[i], bookingTime, availableSeats[i], 250, 120,
+                cancellations[i], departureTimes[i], rewardPoints[i]);
+    }
+
+    // Compare gc.alloc.rate.norm with bookFlight under -prof gc; FlightBookingSystemTest asserts the steady state
+    // allocates nothing
+    @Benchmark
+    public FlightBookingSystem.BookingResult bookFlightEpochMinutes() {
+        int i = next++ & (REQUESTS - 1);
+        return flightBookingSystem.bookFlight(passengers[i], bookingEpochMinute, availableSeats[i], 250, 120,
+                cancellations[i], departureEpochMinutes[i], rewardPoints[i], result);
+    }
+}
@@ -0,0 +1,67 @@
+package activity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FraudDetectionBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int historySize;
+
+    @Param({"10", "10000", "100000"})
+    int blacklistSize;
+
+    private final FraudDetectionSystem fraudDetectionSystem = new FraudDetectionSystem();
+    private List<FraudDetectionSystem.Transaction> previousTransactions;
+    private List<String> blacklistedLocations;
+    private LocationBlacklist blacklist;
+    private FraudDetectionSystem.Transaction currentTransaction;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        previousTransactions = new ArrayList<>(historySize);
+        for (int i = historySize; i > 0; i--) {
+            previousTransactions.add(new FraudDetectionSystem.Transaction(
+                    random.nextInt(12000), now.minusSeconds(i * 10L), "location_" + random.nextInt(100)));
+        }
+        blacklistedLocations = new ArrayList<>(blacklistSize);
+        for (int i = 0; i < blacklistSize; i++) {
+            blacklistedLocations.add("blacklisted_" + i);
+        }
+        blacklist = LocationBlacklist.of(blacklistedLocations);
+        currentTransaction = new FraudDetectionSystem.Transaction(500, now, "location_1");
+    }
+
+    @Benchmark
+    public FraudDetectionSystem.FraudCheckResult checkForFraud() {
+        return fraudDetectionSystem.checkForFraud(currentTransaction, previousTransactions, blacklistedLocations);
+    }
+
+    @Benchmark
+    public FraudDetectionSystem.FraudCheckResult checkForFraudWithBlacklistIndex() {
+        return fraudDetectionSystem.checkForFraud(currentTransaction, previousTransactions, blacklist);
+    }
+}
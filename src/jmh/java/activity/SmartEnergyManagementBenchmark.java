@@ -0,0 +1,77 @@
+package activity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SmartEnergyManagementBenchmark {
+
+    @Param({"10", "1000", "10000", "100000"})
+    int deviceCount;
+
+    // Day and night ticks, each below or above the price threshold
+    @Param({"day", "dayEnergySaving", "night", "nightEnergySaving"})
+    String scenario;
+
+    private final SmartEnergyManagementSystem smartEnergyManagementSystem = new SmartEnergyManagementSystem();
+    private final double[] desiredTemperatureRange = {20.0, 25.0};
+    private final CompactEnergyManagementSystem compactEnergyManagementSystem = new CompactEnergyManagementSystem();
+    private Map<String, Integer> devicePriorities;
+    private CompactHome compactHome;
+    private List<SmartEnergyManagementSystem.DeviceSchedule> scheduledDevices;
+    private LocalDateTime currentTime;
+    private double currentPrice;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        devicePriorities = new HashMap<>();
+        devicePriorities.put("Security", 1);
+        devicePriorities.put("Refrigerator", 1);
+        for (int i = devicePriorities.size(); i < deviceCount; i++) {
+            devicePriorities.put("Device_" + i, 1 + random.nextInt(5));
+        }
+        compactHome = new CompactHome(new DeviceRegistry(), devicePriorities);
+        currentTime = scenario.startsWith("night") ? LocalDateTime.of(2024, 1, 1, 23, 30) : LocalDateTime.of(2024, 1, 1, 12, 0);
+        currentPrice = scenario.endsWith("EnergySaving") ? 0.3 : 0.1;
+        scheduledDevices = new ArrayList<>();
+        for (int i = 0; i < deviceCount / 10; i++) {
+            scheduledDevices.add(new SmartEnergyManagementSystem.DeviceSchedule(
+                    "Device_" + random.nextInt(deviceCount), currentTime.plusMinutes(random.nextInt(1440) - 720)));
+        }
+    }
+
+    @Benchmark
+    public SmartEnergyManagementSystem.EnergyManagementResult manageEnergy() {
+        return smartEnergyManagementSystem.manageEnergy(currentPrice, 0.2, devicePriorities, currentTime, 22.0,
+                desiredTemperatureRange, 100.0, 50.0, scheduledDevices);
+    }
+
+    @Benchmark
+    public SmartEnergyManagementSystem.EnergyManagementResult manageEnergyCompact() {
+        return compactEnergyManagementSystem.manageEnergy(currentPrice, 0.2, compactHome, currentTime, 22.0,
+                desiredTemperatureRange, 100.0, 50.0, scheduledDevices);
+    }
+}
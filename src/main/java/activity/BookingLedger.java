@@ -0,0 +1,524 @@
+package activity;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+import activity.FlightBookingSystem.BookingResult;
+
+// Durable front-end for bookFlight against a FlightInventory. Every decision that changes seats or money is
+// appended to a write-ahead log before it is returned. Appends are group-committed: a flusher thread writes
+// everything queued while the previous fsync ran and fsyncs it once, so concurrent bookings share fsyncs.
+// Every snapshotEveryRecords records the inventory and per-flight totals are snapshotted (temp file, fsync,
+// atomic rename) and the log is truncated. On open, the snapshot is loaded and the log records after it are
+// replayed; a torn or corrupt tail record ends the replay and is cut off.
+//
+// Records carry seat deltas, so replay only depends on their sum and not on the order in which concurrent
+// bookings were logged. Seat changes made on the inventory directly, bypassing the ledger, are not durable.
+// A decision changes the in-memory state when its record is queued, so snapshots see state and queued records
+// together; if the record then fails to commit, the change is rolled back before the error is returned.
+public class BookingLedger implements AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x424B534E;
+    private static final String LOG_FILE = "bookings.wal";
+    private static final String SNAPSHOT_FILE = "inventory.snapshot";
+    private static final byte FLIGHT = 1;
+    private static final byte BOOKING = 2;
+    private static final byte CANCELLATION = 3;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 1 << 16;
+
+    private static class FlightTotals {
+        final DoubleAdder revenue = new DoubleAdder();
+        final DoubleAdder refunds = new DoubleAdder();
+    }
+
+    private final Path directory;
+    private final int snapshotEveryRecords;
+    private final FlightBookingSystem flightBookingSystem = new FlightBookingSystem();
+    private final FlightInventory inventory = new FlightInventory();
+    private final ConcurrentHashMap<String, FlightTotals> totals = new ConcurrentHashMap<>();
+    private final FileChannel log;
+    private final Thread flusher;
+
+    // Decisions hold the read lock while they change state and queue their record; snapshots take the write lock
+    private final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+    // Guards the queue of unwritten records and the sequence numbers
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final Condition recordsQueued = commitLock.newCondition();
+    private final Condition recordsCommitted = commitLock.newCondition();
+    // Held while the log file is written, forced or truncated
+    private final ReentrantLock ioLock = new ReentrantLock();
+
+    private ByteBuffer queued = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer writing = ByteBuffer.allocate(1 << 16);
+    private long lastSequence;
+    private long committedSequence;
+    private long snapshotSequence;
+    private long recordsSinceSnapshot;
+    private IOException failure;
+    private boolean closed;
+
+    public static BookingLedger open(Path directory) throws IOException {
+        return new BookingLedger(directory, 100_000);
+    }
+
+    BookingLedger(Path directory, int snapshotEveryRecords) throws IOException {
+        this.directory = directory;
+        this.snapshotEveryRecords = snapshotEveryRecords;
+        Files.createDirectories(directory);
+        loadSnapshot();
+        Path logPath = directory.resolve(LOG_FILE);
+        boolean created = !Files.exists(logPath);
+        this.log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (created) {
+            // Records fsynced into a new log only survive a power loss once its directory entry does
+            forceDirectory();
+        }
+        replayLog();
+        this.committedSequence = lastSequence;
+        this.flusher = new Thread(this::flushLoop, "booking-ledger-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Seat counts as of the last durable decision; read them here, but book through the ledger
+    public FlightInventory inventory() {
+        return inventory;
+    }
+
+    public double revenue(String flightId) {
+        return flightTotals(flightId).revenue.sum();
+    }
+
+    public double refunds(String flightId) {
+        return flightTotals(flightId).refunds.sum();
+    }
+
+    public void addFlight(String flightId, int capacity) throws IOException {
+        long sequence;
+        // Exclusive, so the flight record precedes every booking record of the flight in the log
+        stateLock.writeLock().lock();
+        try {
+            inventory.addFlight(flightId, capacity);
+            totals.put(flightId, new FlightTotals());
+            try {
+                sequence = queue(FLIGHT, flightId, capacity, 0);
+            } catch (IOException | RuntimeException e) {
+                rollBackFlight(flightId);
+                throw e;
+            }
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        try {
+            awaitCommit(sequence);
+        } catch (IOException e) {
+            rollBackFlight(flightId);
+            throw e;
+        }
+    }
+
+    // Same decision as FlightBookingSystem.bookFlight with the inventory; returns once the decision is durable.
+    // As there, a cancellation of more seats than are booked on the flight is rejected without a refund.
+    public BookingResult bookFlight(String flightId, int passengers, LocalDateTime bookingTime, double currentPrice,
+                                    int previousSales, boolean isCancellation, LocalDateTime departureTime,
+                                    int rewardPointsAvailable) throws IOException {
+        FlightTotals flightTotals;
+        BookingResult result;
+        long sequence;
+        stateLock.readLock().lock();
+        try {
+            flightTotals = flightTotals(flightId);
+            if (isCancellation ? !inventory.release(flightId, passengers) : !inventory.tryReserve(flightId, passengers)) {
+                return new BookingResult(false, 0, 0, false);
+            }
+            result = flightBookingSystem.bookFlight(passengers, bookingTime, passengers, currentPrice, previousSales,
+                    isCancellation, departureTime, rewardPointsAvailable);
+            if (isCancellation) {
+                flightTotals.refunds.add(result.refundAmount);
+            } else {
+                flightTotals.revenue.add(result.totalPrice);
+            }
+            try {
+                sequence = queue(isCancellation ? CANCELLATION : BOOKING, flightId, passengers,
+                        isCancellation ? result.refundAmount : result.totalPrice);
+            } catch (IOException | RuntimeException e) {
+                rollBackBooking(flightId, flightTotals, passengers, isCancellation, result);
+                throw e;
+            }
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        try {
+            awaitCommit(sequence);
+        } catch (IOException e) {
+            rollBackBooking(flightId, flightTotals, passengers, isCancellation, result);
+            throw e;
+        }
+        return result;
+    }
+
+    // Writes the inventory and totals to a new snapshot and truncates the log
+    public void snapshot() throws IOException {
+        stateLock.writeLock().lock();
+        try {
+            long sequence;
+            commitLock.lock();
+            try {
+                checkFailure();
+                // Queued records are covered by the snapshot; the flusher may still write a batch it already took,
+                // but replay skips records at or below the snapshot sequence
+                queued.clear();
+                sequence = lastSequence;
+            } finally {
+                commitLock.unlock();
+            }
+
+            Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeSnapshot(new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel))), sequence);
+                channel.force(true);
+            }
+            Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            // The rename has to be durable before the log is truncated, or a power loss could keep the truncation
+            // and lose the rename, and with it every booking since the previous snapshot
+            forceDirectory();
+
+            ioLock.lock();
+            try {
+                log.truncate(0);
+                log.force(true);
+            } finally {
+                ioLock.unlock();
+            }
+
+            commitLock.lock();
+            try {
+                snapshotSequence = sequence;
+                recordsSinceSnapshot = 0;
+                committedSequence = Math.max(committedSequence, sequence);
+                recordsCommitted.signalAll();
+            } finally {
+                commitLock.unlock();
+            }
+        } catch (IOException e) {
+            fail(e);
+            throw e;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        commitLock.lock();
+        try {
+            closed = true;
+            recordsQueued.signalAll();
+        } finally {
+            commitLock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.close();
+        commitLock.lock();
+        try {
+            checkFailure();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // Undoes the state change of a decision whose record was not committed. The seats are adjusted without the
+    // capacity checks, since other decisions may have moved the count in the meantime.
+    private void rollBackBooking(String flightId, FlightTotals flightTotals, int passengers, boolean isCancellation,
+                                 BookingResult result) {
+        stateLock.readLock().lock();
+        try {
+            // The flight itself may have been rolled back already
+            if (!inventory.hasFlight(flightId)) {
+                return;
+            }
+            if (isCancellation) {
+                inventory.adjustAvailableSeats(flightId, -passengers);
+                flightTotals.refunds.add(-result.refundAmount);
+            } else {
+                inventory.adjustAvailableSeats(flightId, passengers);
+                flightTotals.revenue.add(-result.totalPrice);
+            }
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    private void rollBackFlight(String flightId) {
+        stateLock.writeLock().lock();
+        try {
+            inventory.removeFlight(flightId);
+            totals.remove(flightId);
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+    }
+
+    private void forceDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private FlightTotals flightTotals(String flightId) {
+        FlightTotals flightTotals = totals.get(flightId);
+        if (flightTotals == null) {
+            throw new IllegalArgumentException("Unknown flight: " + flightId);
+        }
+        return flightTotals;
+    }
+
+    // Record: payload length, CRC32C of the payload, then sequence, type, flight id, seats and amount
+    private long queue(byte type, String flightId, int seats, double amount) throws IOException {
+        byte[] id = flightId.getBytes(StandardCharsets.UTF_8);
+        int payloadSize = Long.BYTES + 1 + Short.BYTES + id.length + Integer.BYTES + Double.BYTES;
+        if (payloadSize > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Flight id too long: " + flightId);
+        }
+        commitLock.lock();
+        try {
+            checkFailure();
+            if (closed) {
+                throw new IOException("Booking ledger is closed");
+            }
+            if (queued.remaining() < RECORD_HEADER_SIZE + payloadSize) {
+                queued = grow(queued, RECORD_HEADER_SIZE + payloadSize);
+            }
+            long sequence = ++lastSequence;
+            int start = queued.position();
+            queued.position(start + RECORD_HEADER_SIZE);
+            queued.putLong(sequence).put(type).putShort((short) id.length).put(id).putInt(seats).putDouble(amount);
+            CRC32C crc = new CRC32C();
+            crc.update(queued.array(), start + RECORD_HEADER_SIZE, payloadSize);
+            queued.putInt(start, payloadSize).putInt(start + Integer.BYTES, (int) crc.getValue());
+            recordsQueued.signal();
+            return sequence;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private void awaitCommit(long sequence) throws IOException {
+        commitLock.lock();
+        try {
+            while (committedSequence < sequence) {
+                checkFailure();
+                recordsCommitted.awaitUninterruptibly();
+            }
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long sequence;
+            commitLock.lock();
+            try {
+                while (queued.position() == 0 && !closed && failure == null) {
+                    recordsQueued.awaitUninterruptibly();
+                }
+                if (queued.position() == 0 || failure != null) {
+                    return;
+                }
+                // Swap buffers, so bookings keep queueing while this batch is written
+                ByteBuffer batch = queued;
+                queued = writing;
+                writing = batch;
+                sequence = lastSequence;
+            } finally {
+                commitLock.unlock();
+            }
+
+            boolean snapshotDue;
+            try {
+                ioLock.lock();
+                try {
+                    writing.flip();
+                    while (writing.hasRemaining()) {
+                        log.write(writing);
+                    }
+                    log.force(false);
+                } finally {
+                    writing.clear();
+                    ioLock.unlock();
+                }
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+
+            commitLock.lock();
+            try {
+                recordsSinceSnapshot += Math.max(0, sequence - committedSequence);
+                committedSequence = Math.max(committedSequence, sequence);
+                recordsCommitted.signalAll();
+                snapshotDue = recordsSinceSnapshot >= snapshotEveryRecords && !closed;
+            } finally {
+                commitLock.unlock();
+            }
+            if (snapshotDue) {
+                try {
+                    snapshot();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void fail(IOException e) {
+        commitLock.lock();
+        try {
+            if (failure == null) {
+                failure = e;
+            }
+            recordsCommitted.signalAll();
+            recordsQueued.signalAll();
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Booking ledger failed", failure);
+        }
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int needed) {
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + needed));
+        buffer.flip();
+        return grown.put(buffer);
+    }
+
+    private void writeSnapshot(DataOutputStream out, long sequence) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeLong(sequence);
+        out.writeInt(totals.size());
+        for (String flightId : totals.keySet()) {
+            FlightTotals flightTotals = totals.get(flightId);
+            out.writeUTF(flightId);
+            out.writeInt(inventory.capacity(flightId));
+            out.writeInt(inventory.availableSeats(flightId));
+            out.writeDouble(flightTotals.revenue.sum());
+            out.writeDouble(flightTotals.refunds.sum());
+        }
+        out.flush();
+    }
+
+    private void loadSnapshot() throws IOException {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a booking ledger snapshot: " + path);
+            }
+            snapshotSequence = in.readLong();
+            lastSequence = snapshotSequence;
+            for (int flights = in.readInt(); flights > 0; flights--) {
+                String flightId = in.readUTF();
+                inventory.addFlight(flightId, in.readInt(), in.readInt());
+                FlightTotals flightTotals = new FlightTotals();
+                flightTotals.revenue.add(in.readDouble());
+                flightTotals.refunds.add(in.readDouble());
+                totals.put(flightId, flightTotals);
+            }
+        }
+    }
+
+    private void replayLog() throws IOException {
+        long validSize = 0;
+        try (InputStream stream = Files.newInputStream(directory.resolve(LOG_FILE));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream))) {
+            byte[] payload = new byte[MAX_RECORD_SIZE];
+            CRC32C crc = new CRC32C();
+            while (true) {
+                int payloadSize;
+                int checksum;
+                try {
+                    payloadSize = in.readInt();
+                    checksum = in.readInt();
+                    if (payloadSize <= 0 || payloadSize > MAX_RECORD_SIZE) {
+                        break;
+                    }
+                    in.readFully(payload, 0, payloadSize);
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(payload, 0, payloadSize);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                apply(ByteBuffer.wrap(payload, 0, payloadSize));
+                validSize += RECORD_HEADER_SIZE + payloadSize;
+            }
+        }
+        log.truncate(validSize);
+        log.position(validSize);
+    }
+
+    private void apply(ByteBuffer record) {
+        long sequence = record.getLong();
+        byte type = record.get();
+        byte[] id = new byte[record.getShort()];
+        record.get(id);
+        String flightId = new String(id, StandardCharsets.UTF_8);
+        int seats = record.getInt();
+        double amount = record.getDouble();
+        lastSequence = Math.max(lastSequence, sequence);
+        if (sequence <= snapshotSequence) {
+            return;
+        }
+        switch (type) {
+            case FLIGHT -> {
+                inventory.addFlight(flightId, seats);
+                totals.put(flightId, new FlightTotals());
+            }
+            case BOOKING -> {
+                inventory.adjustAvailableSeats(flightId, -seats);
+                flightTotals(flightId).revenue.add(amount);
+            }
+            case CANCELLATION -> {
+                inventory.adjustAvailableSeats(flightId, seats);
+                flightTotals(flightId).refunds.add(amount);
+            }
+            default -> throw new IllegalStateException("Unknown booking ledger record type: " + type);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package activity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import activity.FlightBookingSystem.BookingResult;
+
+// Booking front-end for many slow clients. Every request runs on its own virtual thread, and requests for the
+// same flight are micro-batched: the first request of a batch waits up to the linger time (or until the batch is
+// full), then the seat reservation, price factor and inventory update are done once for the whole batch.
+public class BookingService implements AutoCloseable {
+
+    public static class BookingRequest {
+        String flightId;
+        int passengers;
+        LocalDateTime bookingTime;
+        double currentPrice;
+        int previousSales;
+        LocalDateTime departureTime;
+        int rewardPointsAvailable;
+
+        public BookingRequest(String flightId, int passengers, LocalDateTime bookingTime, double currentPrice,
+                              int previousSales, LocalDateTime departureTime, int rewardPointsAvailable) {
+            this.flightId = flightId;
+            this.passengers = passengers;
+            this.bookingTime = bookingTime;
+            this.currentPrice = currentPrice;
+            this.previousSales = previousSales;
+            this.departureTime = departureTime;
+            this.rewardPointsAvailable = rewardPointsAvailable;
+        }
+    }
+
+    private static class PendingBooking {
+        final BookingRequest request;
+        final CompletableFuture<BookingResult> result = new CompletableFuture<>();
+
+        PendingBooking(BookingRequest request) {
+            this.request = request;
+        }
+    }
+
+    private static class Batch {
+        final ReentrantLock lock = new ReentrantLock();
+        final Condition full = lock.newCondition();
+        final List<PendingBooking> bookings = new ArrayList<>();
+        boolean closed;
+    }
+
+    private final FlightInventory inventory;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentHashMap<String, Batch> openBatches = new ConcurrentHashMap<>();
+
+    public BookingService(FlightInventory inventory, int maxBatchSize, Duration linger) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        this.inventory = inventory;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = linger.toNanos();
+    }
+
+    public Future<BookingResult> submit(BookingRequest request) {
+        return executor.submit(() -> book(request));
+    }
+
+    // Blocks the calling thread until the batch holding the request has been processed
+    public BookingResult book(BookingRequest request) throws InterruptedException {
+        // Rejected before joining a batch, so a bad request fails alone instead of failing its batch
+        if (request.passengers <= 0) {
+            throw new IllegalArgumentException("Passengers must be positive: " + request.passengers);
+        }
+        if (request.bookingTime == null || request.departureTime == null) {
+            throw new IllegalArgumentException("Booking and departure times are required");
+        }
+        if (!inventory.hasFlight(request.flightId)) {
+            throw new IllegalArgumentException("Unknown flight: " + request.flightId);
+        }
+        PendingBooking booking = new PendingBooking(request);
+        Batch batch;
+        boolean leader;
+        boolean flush;
+        while (true) {
+            batch = openBatches.computeIfAbsent(request.flightId, id -> new Batch());
+            batch.lock.lock();
+            try {
+                if (batch.closed) {
+                    // Lost the race with a flush; the next lookup finds or creates a fresh batch
+                    continue;
+                }
+                batch.bookings.add(booking);
+                leader = batch.bookings.size() == 1;
+                flush = batch.bookings.size() >= maxBatchSize;
+                if (flush) {
+                    close(request.flightId, batch);
+                }
+                break;
+            } finally {
+                batch.lock.unlock();
+            }
+        }
+
+        if (leader && !flush) {
+            flush = awaitBatch(request.flightId, batch);
+        }
+        if (flush) {
+            process(request.flightId, batch.bookings);
+        }
+
+        try {
+            return booking.result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Returns true if the linger time ran out and the leader has to flush the batch itself
+    private boolean awaitBatch(String flightId, Batch batch) {
+        batch.lock.lock();
+        try {
+            long remaining = lingerNanos;
+            while (!batch.closed && remaining > 0) {
+                try {
+                    remaining = batch.full.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (batch.closed) {
+                return false;
+            }
+            close(flightId, batch);
+            return true;
+        } finally {
+            batch.lock.unlock();
+        }
+    }
+
+    private void close(String flightId, Batch batch) {
+        batch.closed = true;
+        openBatches.remove(flightId, batch);
+        batch.full.signal();
+    }
+
+    // Seats reserved for the batch and not handed to a confirmed booking go back to the inventory, also when
+    // processing fails partway; bookings not completed by then fail with the error
+    private void process(String flightId, List<PendingBooking> bookings) {
+        int reservedSeats = 0;
+        int handedOutSeats = 0;
+        try {
+            int requestedSeats = 0;
+            for (PendingBooking booking : bookings) {
+                requestedSeats += booking.request.passengers;
+            }
+
+            // One inventory update for the batch; seats are handed out first-come, first-served
+            reservedSeats = inventory.reserveUpTo(flightId, requestedSeats);
+            int factorSales = Integer.MIN_VALUE;
+            double priceFactor = 0;
+            for (PendingBooking booking : bookings) {
+                BookingRequest request = booking.request;
+                if (request.passengers > reservedSeats - handedOutSeats) {
+                    booking.result.complete(new BookingResult(false, 0, 0, false));
+                    continue;
+                }
+                if (request.previousSales != factorSales) {
+                    factorSales = request.previousSales;
+                    priceFactor = FlightBookingSystem.priceFactor(factorSales);
+                }
+                long hoursToDeparture = Duration.between(request.bookingTime, request.departureTime).toHours();
+                double price = FlightBookingSystem.price(request.currentPrice, priceFactor, request.passengers,
+                        hoursToDeparture, request.rewardPointsAvailable);
+                booking.result.complete(new BookingResult(true, price, 0, request.rewardPointsAvailable > 0));
+                handedOutSeats += request.passengers;
+            }
+        } catch (RuntimeException e) {
+            for (PendingBooking booking : bookings) {
+                booking.result.completeExceptionally(e);
+            }
+        } finally {
+            if (reservedSeats > handedOutSeats) {
+                inventory.release(flightId, reservedSeats - handedOutSeats);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
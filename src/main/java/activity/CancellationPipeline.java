@@ -0,0 +1,117 @@
+package activity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Cancels every booking of a flight in one pass. All bookings share the cancellation and departure times, so the
+// hours to departure, the last-minute fee and the 48-hour refund rule are decided once for the flight. Refunds
+// are handed to a sink as they are computed, so bookings can be streamed from storage without collecting
+// results, and the seats go back to the inventory in a single release at the end. If the bookings or the sink
+// fail partway, the seats of every refund already emitted are still released and the partial summary is thrown
+// with the failure.
+public class CancellationPipeline {
+
+    public static class BookingRecord {
+        String bookingId;
+        int passengers;
+        double currentPrice;
+        int previousSales;
+        int rewardPointsAvailable;
+
+        public BookingRecord(String bookingId, int passengers, double currentPrice, int previousSales,
+                             int rewardPointsAvailable) {
+            this.bookingId = bookingId;
+            this.passengers = passengers;
+            this.currentPrice = currentPrice;
+            this.previousSales = previousSales;
+            this.rewardPointsAvailable = rewardPointsAvailable;
+        }
+    }
+
+    public static class CancellationSummary {
+        int bookings;
+        int seatsCancelled;
+        int seatsReleased;
+        double totalRefund;
+
+        public CancellationSummary(int bookings, int seatsCancelled, int seatsReleased, double totalRefund) {
+            this.bookings = bookings;
+            this.seatsCancelled = seatsCancelled;
+            this.seatsReleased = seatsReleased;
+            this.totalRefund = totalRefund;
+        }
+    }
+
+    // Thrown when reading the bookings or emitting a refund fails; the summary covers the refunds emitted before
+    // the failure, whose seats have been released
+    @SuppressWarnings("serial") // the summary is not serializable and is only meant for the caller that catches this
+    public static class PartialCancellationException extends RuntimeException {
+        final CancellationSummary summary;
+
+        public PartialCancellationException(CancellationSummary summary, RuntimeException cause) {
+            super("Cancellation stopped after " + summary.bookings + " bookings", cause);
+            this.summary = summary;
+        }
+
+        public CancellationSummary summary() {
+            return summary;
+        }
+    }
+
+    // Receives each refund as primitives, so the pipeline allocates nothing per booking
+    public interface RefundSink {
+        void accept(String bookingId, int passengers, double refundAmount);
+    }
+
+    private final FlightInventory inventory;
+
+    public CancellationPipeline(FlightInventory inventory) {
+        this.inventory = inventory;
+    }
+
+    public CancellationSummary cancelFlight(String flightId, LocalDateTime cancellationTime, LocalDateTime departureTime,
+                                            Iterable<BookingRecord> bookings) {
+        return cancelFlight(flightId, cancellationTime, departureTime, bookings, (bookingId, passengers, refundAmount) -> {
+        });
+    }
+
+    // Each refund equals the refundAmount of bookFlight with isCancellation for the same booking. Seats beyond the
+    // flight capacity are not released, as in FlightInventory.releaseUpTo.
+    public CancellationSummary cancelFlight(String flightId, LocalDateTime cancellationTime, LocalDateTime departureTime,
+                                            Iterable<BookingRecord> bookings, RefundSink refunds) {
+        // Checked before any refund goes out, so a bad flight fails the whole call and a bad booking stops it there
+        if (!inventory.hasFlight(flightId)) {
+            throw new IllegalArgumentException("Unknown flight: " + flightId);
+        }
+        long hoursToDeparture = Duration.between(cancellationTime, departureTime).toHours();
+        boolean lastMinute = FlightBookingSystem.isLastMinute(hoursToDeparture);
+        int bookingCount = 0;
+        int seatsCancelled = 0;
+        double totalRefund = 0;
+        try {
+            for (BookingRecord booking : bookings) {
+                if (booking.passengers <= 0) {
+                    throw new IllegalArgumentException("Passengers must be positive: " + booking.passengers);
+                }
+                double unitPrice = booking.currentPrice * FlightBookingSystem.priceFactor(booking.previousSales);
+                double price = FlightBookingSystem.price(unitPrice, booking.passengers, lastMinute,
+                        FlightBookingSystem.isGroup(booking.passengers), booking.rewardPointsAvailable);
+                double refundAmount = FlightBookingSystem.refund(price, hoursToDeparture);
+                refunds.accept(booking.bookingId, booking.passengers, refundAmount);
+                bookingCount++;
+                seatsCancelled += booking.passengers;
+                totalRefund += refundAmount;
+            }
+        } catch (RuntimeException e) {
+            int seatsReleased = release(flightId, seatsCancelled);
+            throw new PartialCancellationException(
+                    new CancellationSummary(bookingCount, seatsCancelled, seatsReleased, totalRefund), e);
+        }
+        int seatsReleased = release(flightId, seatsCancelled);
+        return new CancellationSummary(bookingCount, seatsCancelled, seatsReleased, totalRefund);
+    }
+
+    private int release(String flightId, int seats) {
+        return seats == 0 ? 0 : inventory.releaseUpTo(flightId, seats);
+    }
+}
@@ -0,0 +1,191 @@
+package activity;
+
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import activity.SmartEnergyManagementSystem.DeviceSchedule;
+import activity.SmartEnergyManagementSystem.EnergyManagementResult;
+
+// Same rules as SmartEnergyManagementSystem.manageEnergy, evaluated as mask operations over CompactHome bitmaps.
+// The deviceStatus map of the result is only built when a caller reads it.
+public class CompactEnergyManagementSystem {
+
+    private static final long NIGHT_MODE_EXEMPT = 1L << DeviceRegistry.SECURITY | 1L << DeviceRegistry.REFRIGERATOR;
+    private static final long HEATING = 1L << DeviceRegistry.HEATING;
+    private static final long COOLING = 1L << DeviceRegistry.COOLING;
+
+    // Device status over registry ids: present marks the devices the status map contains, on those switched on.
+    // Lookups and size are answered from the registry and the bitmaps; a HashMap is only built for iteration or
+    // once the map is modified, and then answers everything.
+    public static class DeviceStatusView extends AbstractMap<String, Boolean> {
+        private final DeviceRegistry registry;
+        private final long[] present;
+        private final long[] on;
+        private Map<String, Boolean> deviceStatus;
+
+        DeviceStatusView(DeviceRegistry registry, long[] present, long[] on) {
+            this.registry = registry;
+            this.present = present;
+            this.on = on;
+        }
+
+        public boolean isOn(int deviceId) {
+            int word = deviceId >>> 6;
+            return word < on.length && (on[word] & 1L << deviceId) != 0;
+        }
+
+        public long[] onBits() {
+            return on.clone();
+        }
+
+        @Override
+        public Boolean get(Object key) {
+            if (deviceStatus != null) {
+                return deviceStatus.get(key);
+            }
+            int id = idOf(key);
+            return isPresent(id) ? isOn(id) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            if (deviceStatus != null) {
+                return deviceStatus.containsKey(key);
+            }
+            return isPresent(idOf(key));
+        }
+
+        @Override
+        public int size() {
+            if (deviceStatus != null) {
+                return deviceStatus.size();
+            }
+            int size = 0;
+            for (long bits : present) {
+                size += Long.bitCount(bits);
+            }
+            return size;
+        }
+
+        @Override
+        public Set<Entry<String, Boolean>> entrySet() {
+            return materialize().entrySet();
+        }
+
+        @Override
+        public Boolean put(String key, Boolean value) {
+            return materialize().put(key, value);
+        }
+
+        private int idOf(Object key) {
+            return key instanceof String deviceName ? registry.idOf(deviceName) : -1;
+        }
+
+        private boolean isPresent(int deviceId) {
+            int word = deviceId >>> 6;
+            return deviceId >= 0 && word < present.length && (present[word] & 1L << deviceId) != 0;
+        }
+
+        private Map<String, Boolean> materialize() {
+            if (deviceStatus == null) {
+                deviceStatus = new HashMap<>();
+                for (int word = 0; word < present.length; word++) {
+                    for (long bits = present[word]; bits != 0; bits &= bits - 1) {
+                        int id = word << 6 | Long.numberOfTrailingZeros(bits);
+                        deviceStatus.put(registry.name(id), (on[word] & 1L << id) != 0);
+                    }
+                }
+            }
+            return deviceStatus;
+        }
+    }
+
+    public EnergyManagementResult manageEnergy(double currentPrice, double priceThreshold, CompactHome home,
+                                               LocalDateTime currentTime, double currentTemperature, double[] desiredTemperatureRange,
+                                               double energyUsageLimit, double totalEnergyUsedToday, List<DeviceSchedule> scheduledDevices) {
+        long[] dueDevices = new long[0];
+        for (DeviceSchedule schedule : scheduledDevices) {
+            if (schedule.scheduledTime.equals(currentTime)) {
+                dueDevices = DeviceRegistry.set(dueDevices, home.registry.intern(schedule.deviceName));
+            }
+        }
+        return manageEnergy(currentPrice, priceThreshold, home, currentTime, currentTemperature, desiredTemperatureRange,
+                energyUsageLimit, totalEnergyUsedToday, dueDevices);
+    }
+
+    public EnergyManagementResult manageEnergy(double currentPrice, double priceThreshold, CompactHome home,
+                                               LocalDateTime currentTime, double currentTemperature, double[] desiredTemperatureRange,
+                                               double energyUsageLimit, double totalEnergyUsedToday, ScheduleIndex scheduleIndex) {
+        long[] dueDevices = new long[0];
+        for (DeviceSchedule schedule : scheduleIndex.dueAt(currentTime)) {
+            dueDevices = DeviceRegistry.set(dueDevices, home.registry.intern(schedule.deviceName));
+        }
+        return manageEnergy(currentPrice, priceThreshold, home, currentTime, currentTemperature, desiredTemperatureRange,
+                energyUsageLimit, totalEnergyUsedToday, dueDevices);
+    }
+
+    // dueDevices is the bitmap of devices scheduled exactly at currentTime
+    public EnergyManagementResult manageEnergy(double currentPrice, double priceThreshold, CompactHome home,
+                                               LocalDateTime currentTime, double currentTemperature, double[] desiredTemperatureRange,
+                                               double energyUsageLimit, double totalEnergyUsedToday, long[] dueDevices) {
+        int words = Math.max(home.prioritized.length, dueDevices.length);
+        long[] present = new long[words];
+        long[] on = new long[words];
+        boolean energySavingMode = currentPrice > priceThreshold;
+        boolean nightMode = currentTime.getHour() >= 23 || currentTime.getHour() < 6;
+
+        for (int word = 0; word < home.prioritized.length; word++) {
+            long prioritized = home.prioritized[word];
+            long devicesOn = prioritized;
+            // Turn off low-priority devices in energy-saving mode
+            if (energySavingMode && word < home.lowPriority.length) {
+                devicesOn &= ~home.lowPriority[word];
+            }
+            // Night mode keeps only security and refrigeration on
+            if (nightMode) {
+                devicesOn &= word == 0 ? NIGHT_MODE_EXEMPT : 0;
+            }
+            present[word] = prioritized;
+            on[word] = devicesOn;
+        }
+
+        // Temperature regulation
+        boolean temperatureRegulationActive = false;
+        if (currentTemperature < desiredTemperatureRange[0]) {
+            present[0] |= HEATING;
+            on[0] |= HEATING;
+            temperatureRegulationActive = true;
+        } else if (currentTemperature > desiredTemperatureRange[1]) {
+            present[0] |= COOLING;
+            on[0] |= COOLING;
+            temperatureRegulationActive = true;
+        } else {
+            present[0] |= HEATING | COOLING;
+            on[0] &= ~(HEATING | COOLING);
+        }
+
+        // Shed every running low-priority device once the energy limit is reached
+        if (totalEnergyUsedToday >= energyUsageLimit) {
+            for (int word = 0; word < home.lowPriority.length; word++) {
+                long shed = on[word] & home.lowPriority[word];
+                on[word] &= ~shed;
+                for (int count = Long.bitCount(shed); count > 0; count--) {
+                    totalEnergyUsedToday -= 1;  // Simulate energy reduction
+                }
+            }
+        }
+
+        // Handle scheduled devices
+        for (int word = 0; word < dueDevices.length; word++) {
+            present[word] |= dueDevices[word];
+            on[word] |= dueDevices[word];
+        }
+
+        return new EnergyManagementResult(new DeviceStatusView(home.registry, present, on), energySavingMode,
+                temperatureRegulationActive, totalEnergyUsedToday);
+    }
+}
@@ -0,0 +1,55 @@
+package activity;
+
+import java.util.Arrays;
+import java.util.Map;
+
+// Per-home device priorities as bitmaps over DeviceRegistry ids, with a parallel priority array.
+// Priorities are stored saturated to the byte range; the energy rules only compare them against 1.
+public class CompactHome {
+
+    final DeviceRegistry registry;
+    long[] prioritized = new long[1];
+    long[] lowPriority = new long[1];
+    byte[] priorities = new byte[64];
+
+    public CompactHome(DeviceRegistry registry) {
+        this.registry = registry;
+    }
+
+    public CompactHome(DeviceRegistry registry, Map<String, Integer> devicePriorities) {
+        this(registry);
+        for (Map.Entry<String, Integer> entry : devicePriorities.entrySet()) {
+            setPriority(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public void setPriority(String deviceName, int priority) {
+        int id = registry.intern(deviceName);
+        prioritized = DeviceRegistry.set(prioritized, id);
+        if (priority > 1) {
+            lowPriority = DeviceRegistry.set(lowPriority, id);
+        } else if ((id >>> 6) < lowPriority.length) {
+            lowPriority[id >>> 6] &= ~(1L << id);
+        }
+        if (id >= priorities.length) {
+            priorities = Arrays.copyOf(priorities, Math.max(id + 1, priorities.length * 2));
+        }
+        priorities[id] = (byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, priority));
+    }
+
+    public void removeDevice(String deviceName) {
+        int id = registry.intern(deviceName);
+        int word = id >>> 6;
+        if (word < prioritized.length) {
+            prioritized[word] &= ~(1L << id);
+        }
+        if (word < lowPriority.length) {
+            lowPriority[word] &= ~(1L << id);
+        }
+    }
+
+    public byte priority(String deviceName) {
+        int id = registry.intern(deviceName);
+        return id < priorities.length ? priorities[id] : 0;
+    }
+}
@@ -0,0 +1,203 @@
+package activity;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Call counters, latency histograms and rule hit counters for the decision methods. Every cell is a LongAdder,
+// so recording from many threads does not contend. DISABLED overrides every method with a no-op; call sites that
+// only ever see it are inlined to nothing by the JIT.
+public class DecisionMetrics {
+
+    public static final DecisionMetrics DISABLED = new DecisionMetrics() {
+        @Override
+        public long startTimer() {
+            return 0;
+        }
+
+        @Override
+        public void recordCall(String method, long startNanos) {
+        }
+
+        @Override
+        public void increment(String counter) {
+        }
+
+        @Override
+        public void add(String counter, long amount) {
+        }
+    };
+
+    // Log-linear buckets in the spirit of HdrHistogram: exact below 16ns, then 8 sub-buckets per power of two,
+    // which keeps every recorded value within 12.5% of its bucket's lower bound
+    public static class LatencyHistogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+        private static final int BUCKETS = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        public LatencyHistogram() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long nanos) {
+            long value = Math.max(0, nanos);
+            buckets[bucketOf(value)].increment();
+            count.increment();
+            totalNanos.add(value);
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public double meanNanos() {
+            long calls = count.sum();
+            return calls == 0 ? 0 : (double) totalNanos.sum() / calls;
+        }
+
+        // Lower bound of the bucket holding the given percentile (0-100)
+        public long percentileNanos(double percentile) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return lowerBoundOf(i);
+                }
+            }
+            return lowerBoundOf(BUCKETS - 1);
+        }
+
+        static int bucketOf(long value) {
+            if (value < LINEAR_LIMIT) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+        }
+
+        static long lowerBoundOf(int bucket) {
+            if (bucket < LINEAR_LIMIT) {
+                return bucket;
+            }
+            int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+            long subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+            return (1L << exponent) | subBucket << (exponent - SUB_BUCKET_BITS);
+        }
+    }
+
+    public interface DecisionMetricsMXBean {
+        Map<String, Long> getCounters();
+
+        String getSnapshotJson();
+    }
+
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    public long startTimer() {
+        return System.nanoTime();
+    }
+
+    // Counts one call of the method and records its latency since startTimer
+    public void recordCall(String method, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        latencies.computeIfAbsent(method, name -> new LatencyHistogram()).record(elapsed);
+    }
+
+    public void increment(String counter) {
+        counters.computeIfAbsent(counter, name -> new LongAdder()).increment();
+    }
+
+    public void add(String counter, long amount) {
+        counters.computeIfAbsent(counter, name -> new LongAdder()).add(amount);
+    }
+
+    public long counter(String counter) {
+        LongAdder adder = counters.get(counter);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public long calls(String method) {
+        LatencyHistogram histogram = latencies.get(method);
+        return histogram == null ? 0 : histogram.count();
+    }
+
+    public LatencyHistogram latency(String method) {
+        return latencies.get(method);
+    }
+
+    public Map<String, Long> counters() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((name, adder) -> snapshot.put(name, adder.sum()));
+        return snapshot;
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"calls\":{");
+        String separator = "";
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(latencies).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            json.append(separator).append('"').append(entry.getKey()).append("\":{")
+                    .append("\"count\":").append(histogram.count())
+                    .append(",\"meanNanos\":").append(histogram.meanNanos())
+                    .append(",\"p50Nanos\":").append(histogram.percentileNanos(50))
+                    .append(",\"p90Nanos\":").append(histogram.percentileNanos(90))
+                    .append(",\"p99Nanos\":").append(histogram.percentileNanos(99))
+                    .append(",\"p999Nanos\":").append(histogram.percentileNanos(99.9))
+                    .append('}');
+            separator = ",";
+        }
+        json.append("},\"counters\":{");
+        separator = "";
+        for (Map.Entry<String, Long> entry : counters().entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+
+    public void writeJson(Path path) throws IOException {
+        Files.writeString(path, toJson());
+    }
+
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("activity:type=DecisionMetrics,name=" + name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new DecisionMetricsMXBean() {
+            @Override
+            public Map<String, Long> getCounters() {
+                return counters();
+            }
+
+            @Override
+            public String getSnapshotJson() {
+                return toJson();
+            }
+        }, objectName);
+        return objectName;
+    }
+}
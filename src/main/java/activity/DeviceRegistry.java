@@ -0,0 +1,73 @@
+package activity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Interns device names to dense int ids shared by every home. The devices the energy rules refer to by name
+// get fixed ids in the first bitmap word, so the rules can use constant masks.
+public class DeviceRegistry {
+
+    public static final int SECURITY = 0;
+    public static final int REFRIGERATOR = 1;
+    public static final int HEATING = 2;
+    public static final int COOLING = 3;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    public DeviceRegistry() {
+        intern("Security");
+        intern("Refrigerator");
+        intern("Heating");
+        intern("Cooling");
+    }
+
+    public int intern(String deviceName) {
+        Integer id = ids.get(deviceName);
+        if (id != null) {
+            return id;
+        }
+        synchronized (names) {
+            return ids.computeIfAbsent(deviceName, key -> {
+                names.add(key);
+                return names.size() - 1;
+            });
+        }
+    }
+
+    // Returns -1 for names that were never interned
+    public int idOf(String deviceName) {
+        Integer id = ids.get(deviceName);
+        return id == null ? -1 : id;
+    }
+
+    public String name(int id) {
+        synchronized (names) {
+            return names.get(id);
+        }
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public long[] maskOf(Collection<String> deviceNames) {
+        long[] mask = new long[0];
+        for (String deviceName : deviceNames) {
+            mask = set(mask, intern(deviceName));
+        }
+        return mask;
+    }
+
+    static long[] set(long[] bits, int id) {
+        int word = id >>> 6;
+        if (word >= bits.length) {
+            bits = Arrays.copyOf(bits, word + 1);
+        }
+        bits[word] |= 1L << id;
+        return bits;
+    }
+}
@@ -0,0 +1,174 @@
+package activity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import activity.SmartEnergyManagementSystem.DeviceSchedule;
+import activity.SmartEnergyManagementSystem.EnergyManagementResult;
+
+// Stateful manageEnergy for one home. The session remembers which rules were active on the previous tick and only
+// re-evaluates the devices whose rules changed, emitting the devices that toggled. Devices missing from the
+// status map count as off in the diff.
+public class EnergySession {
+
+    public static class EnergyTick {
+        EnergyManagementResult result;
+        Map<String, Boolean> changes;
+
+        public EnergyTick(EnergyManagementResult result, Map<String, Boolean> changes) {
+            this.result = result;
+            this.changes = changes;
+        }
+    }
+
+    private final Map<String, Integer> devicePriorities;
+    private final double priceThreshold;
+    private final double[] desiredTemperatureRange;
+    private final double energyUsageLimit;
+    private final ScheduleIndex scheduleIndex;
+    private final List<String> lowPriorityDevices = new ArrayList<>();
+    private final List<String> nightModeDevices = new ArrayList<>();
+
+    // Status of the last tick; handed out read-only and updated in place
+    private final Map<String, Boolean> deviceStatus = new HashMap<>();
+    private final Map<String, Boolean> deviceStatusView = Collections.unmodifiableMap(deviceStatus);
+
+    private boolean started;
+    private boolean energySavingMode;
+    private boolean nightMode;
+    private int temperatureState;
+    private boolean shedding;
+    private int sheddableDevices;
+    private Set<String> dueDevices = Collections.emptySet();
+
+    public EnergySession(Map<String, Integer> devicePriorities, double priceThreshold, double[] desiredTemperatureRange,
+                         double energyUsageLimit, ScheduleIndex scheduleIndex) {
+        this.devicePriorities = new HashMap<>(devicePriorities);
+        this.priceThreshold = priceThreshold;
+        this.desiredTemperatureRange = desiredTemperatureRange.clone();
+        this.energyUsageLimit = energyUsageLimit;
+        this.scheduleIndex = scheduleIndex;
+        for (Map.Entry<String, Integer> entry : this.devicePriorities.entrySet()) {
+            if (entry.getValue() > 1) {
+                lowPriorityDevices.add(entry.getKey());
+            }
+            if (!isNightModeExempt(entry.getKey())) {
+                nightModeDevices.add(entry.getKey());
+            }
+        }
+    }
+
+    // The result's deviceStatus is a read-only view that the next tick updates
+    public EnergyTick tick(double currentPrice, LocalDateTime currentTime, double currentTemperature, double totalEnergyUsedToday) {
+        boolean energySavingMode = currentPrice > priceThreshold;
+        boolean nightMode = currentTime.getHour() >= 23 || currentTime.getHour() < 6;
+        int temperatureState = currentTemperature < desiredTemperatureRange[0] ? -1
+                : currentTemperature > desiredTemperatureRange[1] ? 1 : 0;
+        boolean shedding = totalEnergyUsedToday >= energyUsageLimit;
+        Set<String> dueDevices = new HashSet<>();
+        for (DeviceSchedule schedule : scheduleIndex.dueAt(currentTime)) {
+            dueDevices.add(schedule.deviceName);
+        }
+
+        Set<String> affectedDevices = new LinkedHashSet<>();
+        if (!started) {
+            affectedDevices.addAll(devicePriorities.keySet());
+            affectedDevices.add("Heating");
+            affectedDevices.add("Cooling");
+        }
+        if (!started || energySavingMode != this.energySavingMode || shedding != this.shedding) {
+            affectedDevices.addAll(lowPriorityDevices);
+        }
+        if (!started || nightMode != this.nightMode) {
+            affectedDevices.addAll(nightModeDevices);
+        }
+        if (!started || temperatureState != this.temperatureState) {
+            affectedDevices.add("Heating");
+            affectedDevices.add("Cooling");
+        }
+        boolean sheddableChanged = !started || energySavingMode != this.energySavingMode || nightMode != this.nightMode
+                || temperatureState != this.temperatureState;
+        affectedDevices.addAll(this.dueDevices);
+        affectedDevices.addAll(dueDevices);
+
+        this.started = true;
+        this.energySavingMode = energySavingMode;
+        this.nightMode = nightMode;
+        this.temperatureState = temperatureState;
+        this.shedding = shedding;
+        this.dueDevices = dueDevices;
+
+        Map<String, Boolean> changes = new LinkedHashMap<>();
+        for (String device : affectedDevices) {
+            Boolean status = status(device);
+            Boolean previous = status == null ? deviceStatus.remove(device) : deviceStatus.put(device, status);
+            boolean wasOn = previous != null && previous;
+            boolean isOn = status != null && status;
+            if (wasOn != isOn) {
+                changes.put(device, isOn);
+            }
+        }
+
+        if (sheddableChanged) {
+            sheddableDevices = 0;
+            for (String device : lowPriorityDevices) {
+                if (statusBeforeShedding(device, devicePriorities.get(device))) {
+                    sheddableDevices++;
+                }
+            }
+        }
+        if (shedding) {
+            for (int count = sheddableDevices; count > 0; count--) {
+                totalEnergyUsedToday -= 1;  // Simulate energy reduction
+            }
+        }
+
+        EnergyManagementResult result = new EnergyManagementResult(deviceStatusView, energySavingMode,
+                temperatureState != 0, totalEnergyUsedToday);
+        return new EnergyTick(result, changes);
+    }
+
+    // Status the rules of manageEnergy give a device under the current rule state, or null if it has none
+    private Boolean status(String device) {
+        if (dueDevices.contains(device)) {
+            return true;
+        }
+        Integer priority = devicePriorities.get(device);
+        if (priority == null) {
+            return statusFromTemperature(device);
+        }
+        boolean status = statusBeforeShedding(device, priority);
+        return status && !(shedding && priority > 1);
+    }
+
+    private boolean statusBeforeShedding(String device, int priority) {
+        Boolean temperatureStatus = statusFromTemperature(device);
+        if (temperatureStatus != null) {
+            return temperatureStatus;
+        }
+        return !(energySavingMode && priority > 1) && !(nightMode && !isNightModeExempt(device));
+    }
+
+    // Heating and Cooling are forced on or off by temperature regulation; null means the rule leaves them alone
+    private Boolean statusFromTemperature(String device) {
+        if (device.equals("Heating")) {
+            return temperatureState < 0 ? Boolean.TRUE : temperatureState == 0 ? Boolean.FALSE : null;
+        }
+        if (device.equals("Cooling")) {
+            return temperatureState > 0 ? Boolean.TRUE : temperatureState == 0 ? Boolean.FALSE : null;
+        }
+        return null;
+    }
+
+    private static boolean isNightModeExempt(String device) {
+        return device.equals("Security") || device.equals("Refrigerator");
+    }
+}
@@ -0,0 +1,36 @@
+package activity;
+
+// Bulk version of FlightBookingSystem.price over columnar fare rows: row i is a fare of currentPrices[i] with
+// previousSales[i] sales, for passengers[i] passengers departing in hoursToDeparture[i] hours. Every fee and
+// discount is applied unconditionally with a neutral value (+0, *1, -0) when it does not apply, so the loop
+// has no data-dependent branches and C2 can unroll and vectorize it. The neutral operations are exact, so each
+// row gets bit-for-bit the price that bookFlight would compute.
+public class FareRepricer {
+
+    private FareRepricer() {
+    }
+
+    public static void reprice(double[] currentPrices, int[] previousSales, int[] passengers, long[] hoursToDeparture,
+                               int[] rewardPointsAvailable, double[] totalPrices) {
+        reprice(currentPrices, previousSales, passengers, hoursToDeparture, rewardPointsAvailable, totalPrices, 0,
+                currentPrices.length);
+    }
+
+    // Reprices rows offset to offset + length - 1; slices of one schedule can be repriced on separate threads
+    public static void reprice(double[] currentPrices, int[] previousSales, int[] passengers, long[] hoursToDeparture,
+                               int[] rewardPointsAvailable, double[] totalPrices, int offset, int length) {
+        int end = offset + length;
+        if (offset < 0 || length < 0 || end > currentPrices.length || end > previousSales.length
+                || end > passengers.length || end > hoursToDeparture.length || end > rewardPointsAvailable.length
+                || end > totalPrices.length) {
+            throw new IllegalArgumentException("Rows " + offset + " to " + end + " are out of bounds");
+        }
+        for (int i = offset; i < end; i++) {
+            double unitPrice = currentPrices[i] * FlightBookingSystem.priceFactor(previousSales[i]);
+            double lastMinuteFee = FlightBookingSystem.isLastMinute(hoursToDeparture[i]) ? 100 : 0;
+            double groupFactor = FlightBookingSystem.isGroup(passengers[i]) ? 0.95 : 1;
+            double pointsDiscount = Math.max(rewardPointsAvailable[i], 0) * 0.01;
+            totalPrices[i] = (unitPrice * passengers[i] + lastMinuteFee) * groupFactor - pointsDiscount;
+        }
+    }
+}
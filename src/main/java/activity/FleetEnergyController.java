@@ -0,0 +1,140 @@
+package activity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import activity.SmartEnergyManagementSystem.DeviceSchedule;
+import activity.SmartEnergyManagementSystem.EnergyManagementResult;
+
+// Evaluates manageEnergy for a whole fleet of homes per tick. Homes are split into fixed-size ranges on a
+// ForkJoinPool and the per-home results are reduced into a fleet summary. The split does not depend on the
+// number of threads, so the summary (including the floating-point load sum) is the same for any parallelism.
+public class FleetEnergyController implements AutoCloseable {
+
+    private static final int HOMES_PER_TASK = 1024;
+
+    public static class HomeState {
+        Map<String, Integer> devicePriorities;
+        double currentTemperature;
+        double[] desiredTemperatureRange;
+        double energyUsageLimit;
+        double totalEnergyUsedToday;
+        List<DeviceSchedule> scheduledDevices;
+
+        public HomeState(Map<String, Integer> devicePriorities, double currentTemperature, double[] desiredTemperatureRange,
+                         double energyUsageLimit, double totalEnergyUsedToday, List<DeviceSchedule> scheduledDevices) {
+            this.devicePriorities = devicePriorities;
+            this.currentTemperature = currentTemperature;
+            this.desiredTemperatureRange = desiredTemperatureRange;
+            this.energyUsageLimit = energyUsageLimit;
+            this.totalEnergyUsedToday = totalEnergyUsedToday;
+            this.scheduledDevices = scheduledDevices;
+        }
+    }
+
+    public static class FleetSummary {
+        int homes;
+        double aggregateLoad;
+        int energySavingHomes;
+        int temperatureRegulatingHomes;
+
+        public FleetSummary(int homes, double aggregateLoad, int energySavingHomes, int temperatureRegulatingHomes) {
+            this.homes = homes;
+            this.aggregateLoad = aggregateLoad;
+            this.energySavingHomes = energySavingHomes;
+            this.temperatureRegulatingHomes = temperatureRegulatingHomes;
+        }
+
+        FleetSummary combine(FleetSummary other) {
+            return new FleetSummary(homes + other.homes, aggregateLoad + other.aggregateLoad,
+                    energySavingHomes + other.energySavingHomes,
+                    temperatureRegulatingHomes + other.temperatureRegulatingHomes);
+        }
+    }
+
+    private final SmartEnergyManagementSystem smartEnergyManagementSystem = new SmartEnergyManagementSystem();
+    private final ForkJoinPool pool;
+
+    public FleetEnergyController(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public FleetSummary evaluate(List<HomeState> homes, double currentPrice, double priceThreshold, LocalDateTime currentTime) {
+        return evaluate(homes, currentPrice, priceThreshold, currentTime, null);
+    }
+
+    // When results is not null, the per-home result of homes[i] is also stored in results[i]
+    public FleetSummary evaluate(List<HomeState> homes, double currentPrice, double priceThreshold, LocalDateTime currentTime,
+                                 EnergyManagementResult[] results) {
+        return pool.invoke(new FleetTask(smartEnergyManagementSystem, homes, 0, homes.size(), currentPrice,
+                priceThreshold, currentTime, results));
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // ForkJoinTask is Serializable only by inheritance; tasks are never serialized, so their fields need not be
+    @SuppressWarnings("serial")
+    private static class FleetTask extends RecursiveTask<FleetSummary> {
+        private final SmartEnergyManagementSystem smartEnergyManagementSystem;
+        private final List<HomeState> homes;
+        private final int from;
+        private final int to;
+        private final double currentPrice;
+        private final double priceThreshold;
+        private final LocalDateTime currentTime;
+        private final EnergyManagementResult[] results;
+
+        FleetTask(SmartEnergyManagementSystem smartEnergyManagementSystem, List<HomeState> homes, int from, int to,
+                  double currentPrice, double priceThreshold, LocalDateTime currentTime, EnergyManagementResult[] results) {
+            this.smartEnergyManagementSystem = smartEnergyManagementSystem;
+            this.homes = homes;
+            this.from = from;
+            this.to = to;
+            this.currentPrice = currentPrice;
+            this.priceThreshold = priceThreshold;
+            this.currentTime = currentTime;
+            this.results = results;
+        }
+
+        @Override
+        protected FleetSummary compute() {
+            if (to - from > HOMES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                FleetTask left = new FleetTask(smartEnergyManagementSystem, homes, from, middle, currentPrice,
+                        priceThreshold, currentTime, results);
+                FleetTask right = new FleetTask(smartEnergyManagementSystem, homes, middle, to, currentPrice,
+                        priceThreshold, currentTime, results);
+                left.fork();
+                FleetSummary rightSummary = right.compute();
+                return left.join().combine(rightSummary);
+            }
+
+            double aggregateLoad = 0;
+            int energySavingHomes = 0;
+            int temperatureRegulatingHomes = 0;
+            for (int i = from; i < to; i++) {
+                HomeState home = homes.get(i);
+                EnergyManagementResult result = smartEnergyManagementSystem.manageEnergy(currentPrice, priceThreshold,
+                        home.devicePriorities, currentTime, home.currentTemperature, home.desiredTemperatureRange,
+                        home.energyUsageLimit, home.totalEnergyUsedToday, home.scheduledDevices);
+                aggregateLoad += result.totalEnergyUsed;
+                if (result.energySavingMode) {
+                    energySavingHomes++;
+                }
+                if (result.temperatureRegulationActive) {
+                    temperatureRegulatingHomes++;
+                }
+                if (results != null) {
+                    results[i] = result;
+                }
+            }
+            return new FleetSummary(to - from, aggregateLoad, energySavingHomes, temperatureRegulatingHomes);
+        }
+    }
+}
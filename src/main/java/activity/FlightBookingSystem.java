@@ -18,53 +18,247 @@ public class FlightBookingSystem {
             this.refundAmount = refundAmount;
             this.pointsUsed = pointsUsed;
         }
+
+        public BookingResult() {
+            this(false, 0, 0, false);
+        }
+
+        BookingResult set(boolean confirmation, double totalPrice, double refundAmount, boolean pointsUsed) {
+            this.confirmation = confirmation;
+            this.totalPrice = totalPrice;
+            this.refundAmount = refundAmount;
+            this.pointsUsed = pointsUsed;
+            return this;
+        }
+    }
+
+    public static class SeatedBookingResult extends BookingResult {
+        SeatMap.SeatHold seatHold;
+
+        public SeatedBookingResult(boolean confirmation, double totalPrice, double refundAmount, boolean pointsUsed,
+                                   SeatMap.SeatHold seatHold) {
+            super(confirmation, totalPrice, refundAmount, pointsUsed);
+            this.seatHold = seatHold;
+        }
+    }
+
+    private final DecisionMetrics metrics;
+
+    public FlightBookingSystem() {
+        this(DecisionMetrics.DISABLED);
+    }
+
+    // Records bookFlight calls, latencies, rejections, cancellations and the fees and discounts
+    // applied to confirmed bookings into metrics
+    public FlightBookingSystem(DecisionMetrics metrics) {
+        this.metrics = metrics;
     }
 
     public BookingResult bookFlight(int passengers, LocalDateTime bookingTime, int availableSeats,
                                     double currentPrice, int previousSales, boolean isCancellation,
                                     LocalDateTime departureTime, int rewardPointsAvailable) {
-        double finalPrice = 0;
-        double refundAmount = 0;
-        boolean confirmation = false;
-        boolean pointsUsed = false;
+        long start = metrics.startTimer();
+        try {
+            return decide(passengers, bookingTime, availableSeats, currentPrice, previousSales, isCancellation,
+                    departureTime, rewardPointsAvailable);
+        } finally {
+            metrics.recordCall("booking.bookFlight", start);
+        }
+    }
 
+    // The decision of bookFlight without the call timing, for overloads that time the whole call themselves
+    private BookingResult decide(int passengers, LocalDateTime bookingTime, int availableSeats, double currentPrice,
+                                 int previousSales, boolean isCancellation, LocalDateTime departureTime,
+                                 int rewardPointsAvailable) {
         // Check if enough seats are available
         if (passengers > availableSeats) {
-            return new BookingResult(confirmation, finalPrice, refundAmount, pointsUsed);
+            metrics.increment("booking.rejected");
+            return new BookingResult(false, 0, 0, false);
+        }
+
+        return decide(passengers, currentPrice, previousSales, isCancellation,
+                Duration.between(bookingTime, departureTime).toHours(), rewardPointsAvailable);
+    }
+
+    // Pricing, refund and rule counts once the seats are settled; cannot fail
+    private BookingResult decide(int passengers, double currentPrice, int previousSales, boolean isCancellation,
+                                 long hoursToDeparture, int rewardPointsAvailable) {
+        double finalPrice = price(currentPrice, priceFactor(previousSales), passengers, hoursToDeparture, rewardPointsAvailable);
+
+        // Cancellations
+        if (isCancellation) {
+            metrics.increment("booking.cancellation");
+            return new BookingResult(false, 0, refund(finalPrice, hoursToDeparture), false);
+        }
+
+        countPricingRules(passengers, hoursToDeparture, rewardPointsAvailable);
+        return new BookingResult(true, finalPrice, 0, rewardPointsAvailable > 0);
+    }
+
+    // Allocation-free variant for hot paths: times are epoch minutes and the decision is written into a
+    // caller-owned result that can be reused across calls
+    public BookingResult bookFlight(int passengers, long bookingEpochMinute, int availableSeats,
+                                    double currentPrice, int previousSales, boolean isCancellation,
+                                    long departureEpochMinute, int rewardPointsAvailable, BookingResult result) {
+        long start = metrics.startTimer();
+        try {
+            if (passengers > availableSeats) {
+                metrics.increment("booking.rejected");
+                return result.set(false, 0, 0, false);
+            }
+
+            // Same truncation towards zero as Duration.toHours
+            long hoursToDeparture = (departureEpochMinute - bookingEpochMinute) / 60;
+            double finalPrice = price(currentPrice, priceFactor(previousSales), passengers, hoursToDeparture, rewardPointsAvailable);
+
+            if (isCancellation) {
+                metrics.increment("booking.cancellation");
+                return result.set(false, 0, refund(finalPrice, hoursToDeparture), false);
+            }
+
+            countPricingRules(passengers, hoursToDeparture, rewardPointsAvailable);
+            return result.set(true, finalPrice, 0, rewardPointsAvailable > 0);
+        } finally {
+            metrics.recordCall("booking.bookFlight", start);
         }
+    }
+
+    private void countPricingRules(int passengers, long hoursToDeparture, int rewardPointsAvailable) {
+        if (isLastMinute(hoursToDeparture)) {
+            metrics.increment("booking.lastMinuteFee");
+        }
+        if (isGroup(passengers)) {
+            metrics.increment("booking.groupDiscount");
+        }
+        if (rewardPointsAvailable > 0) {
+            metrics.increment("booking.rewardPoints");
+        }
+    }
+
+    // Dynamic pricing based on sales and demand index
+    static double priceFactor(int previousSales) {
+        return (previousSales / 100.0) * 0.8;
+    }
 
-        // Dynamic pricing based on sales and demand index
-        double priceFactor = (previousSales / 100.0) * 0.8;
-        finalPrice = currentPrice * priceFactor * passengers;
+    static double price(double currentPrice, double priceFactor, int passengers, long hoursToDeparture,
+                        int rewardPointsAvailable) {
+        return price(currentPrice * priceFactor, passengers, isLastMinute(hoursToDeparture), isGroup(passengers),
+                rewardPointsAvailable);
+    }
+
+    // Fee and discount pipeline on top of the per-passenger price
+    static double price(double unitPrice, int passengers, boolean lastMinute, boolean group, int rewardPointsAvailable) {
+        double finalPrice = unitPrice * passengers;
 
         // Last-minute fee
-        long hoursToDeparture = Duration.between(bookingTime, departureTime).toHours();
-        if (hoursToDeparture < 24) {
+        if (lastMinute) {
             finalPrice += 100;
         }
 
         // Group booking discount
-        if (passengers > 4) {
+        if (group) {
             finalPrice *= 0.95;  // 5% discount
         }
 
         // Reward points redemption
         if (rewardPointsAvailable > 0) {
             finalPrice -= rewardPointsAvailable * 0.01;
-            pointsUsed = true;
         }
 
-        // Cancellations
-        if (isCancellation) {
-            if (hoursToDeparture >= 48) {
-                refundAmount = finalPrice;
-            } else {
-                refundAmount = finalPrice * 0.5;
+        return finalPrice;
+    }
+
+    static boolean isLastMinute(long hoursToDeparture) {
+        return hoursToDeparture < 24;
+    }
+
+    static boolean isGroup(int passengers) {
+        return passengers > 4;
+    }
+
+    static double refund(double price, long hoursToDeparture) {
+        return hoursToDeparture >= 48 ? price : price * 0.5;
+    }
+
+    // Books against shared seat inventory: seats are reserved before pricing and released again on cancellation.
+    // A cancellation of more seats than are booked on the flight releases nothing and is rejected without a refund.
+    public BookingResult bookFlight(FlightInventory inventory, String flightId, int passengers, LocalDateTime bookingTime,
+                                    double currentPrice, int previousSales, boolean isCancellation,
+                                    LocalDateTime departureTime, int rewardPointsAvailable) {
+        long start = metrics.startTimer();
+        try {
+            // Computed before the inventory update, so bad times fail the call before any seat moves
+            long hoursToDeparture = Duration.between(bookingTime, departureTime).toHours();
+            if (isCancellation ? !inventory.release(flightId, passengers) : !inventory.tryReserve(flightId, passengers)) {
+                metrics.increment("booking.rejected");
+                return new BookingResult(false, 0, 0, false);
+            }
+            return decide(passengers, currentPrice, previousSales, isCancellation, hoursToDeparture,
+                    rewardPointsAvailable);
+        } finally {
+            metrics.recordCall("booking.bookFlight", start);
+        }
+    }
+
+    // Books seats on a seat map and returns the held seats. A group is seated in one block of adjacent seats when
+    // a row has one, and on the first free seats otherwise; pricing is the same as bookFlight either way.
+    // Cancelling means releasing the hold on the seat map.
+    public SeatedBookingResult bookFlight(SeatMap seatMap, int passengers, LocalDateTime bookingTime, double currentPrice,
+                                          int previousSales, LocalDateTime departureTime, int rewardPointsAvailable) {
+        long start = metrics.startTimer();
+        try {
+            SeatMap.SeatHold seatHold = isGroup(passengers) ? seatMap.holdTogether(passengers) : null;
+            if (seatHold == null) {
+                seatHold = seatMap.hold(passengers);
             }
-            return new BookingResult(false, 0, refundAmount, false);
+            if (seatHold == null) {
+                metrics.increment("booking.rejected");
+                return new SeatedBookingResult(false, 0, 0, false, null);
+            }
+            if (isGroup(passengers) && seatHold.isContiguous()) {
+                metrics.increment("booking.groupSeatedTogether");
+            }
+            BookingResult result;
+            try {
+                result = decide(passengers, bookingTime, passengers, currentPrice, previousSales, false, departureTime,
+                        rewardPointsAvailable);
+            } catch (RuntimeException e) {
+                seatMap.release(seatHold);
+                throw e;
+            }
+            return new SeatedBookingResult(result.confirmation, result.totalPrice, result.refundAmount,
+                    result.pointsUsed, seatHold);
+        } finally {
+            metrics.recordCall("booking.bookFlight", start);
         }
-        confirmation = true;
+    }
 
-        return new BookingResult(confirmation, finalPrice, refundAmount, pointsUsed);
+    // Redeems the member's points through the ledger: the points are reserved before pricing and the debit is
+    // committed only for a confirmed booking, so pointsUsed means the points were actually debited. If the member
+    // cannot cover the points, the booking is priced without them. Cancellations debit nothing.
+    public BookingResult bookFlight(RewardPointsLedger rewardPoints, String memberId, int passengers,
+                                    LocalDateTime bookingTime, int availableSeats, double currentPrice, int previousSales,
+                                    boolean isCancellation, LocalDateTime departureTime, int rewardPointsToRedeem) {
+        if (isCancellation || passengers > availableSeats || rewardPointsToRedeem <= 0) {
+            return bookFlight(passengers, bookingTime, availableSeats, currentPrice, previousSales, isCancellation,
+                    departureTime, isCancellation ? rewardPointsToRedeem : 0);
+        }
+
+        RewardPointsLedger.PointsReservation reservation = rewardPoints.reserve(memberId, rewardPointsToRedeem);
+        BookingResult result;
+        try {
+            result = bookFlight(passengers, bookingTime, availableSeats, currentPrice, previousSales, false,
+                    departureTime, reservation == null ? 0 : rewardPointsToRedeem);
+        } catch (RuntimeException e) {
+            // Pricing failed, so the points go back to the member's spendable balance
+            if (reservation != null) {
+                rewardPoints.cancel(reservation);
+            }
+            throw e;
+        }
+        if (reservation != null) {
+            rewardPoints.commit(reservation);
+        }
+        return result;
     }
 }
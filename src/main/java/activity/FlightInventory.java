@@ -0,0 +1,152 @@
+package activity;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Seat counts per flight, shared by concurrent bookings. Reservations are lock-free CAS loops on
+// a per-flight counter, so bookings on different flights never contend and a flight is never overbooked.
+public class FlightInventory {
+
+    private static class SeatCounter {
+        final int capacity;
+        final AtomicInteger available;
+
+        SeatCounter(int capacity, int available) {
+            this.capacity = capacity;
+            this.available = new AtomicInteger(available);
+        }
+    }
+
+    private final ConcurrentHashMap<String, SeatCounter> flights = new ConcurrentHashMap<>();
+
+    public void addFlight(String flightId, int capacity) {
+        addFlight(flightId, capacity, capacity);
+    }
+
+    public void addFlight(String flightId, int capacity, int availableSeats) {
+        if (availableSeats < 0 || availableSeats > capacity) {
+            throw new IllegalArgumentException("Available seats must be between 0 and " + capacity + ": " + availableSeats);
+        }
+        if (flights.putIfAbsent(flightId, new SeatCounter(capacity, availableSeats)) != null) {
+            throw new IllegalArgumentException("Flight already registered: " + flightId);
+        }
+    }
+
+    public boolean hasFlight(String flightId) {
+        return flights.containsKey(flightId);
+    }
+
+    public Set<String> flightIds() {
+        return Collections.unmodifiableSet(flights.keySet());
+    }
+
+    public int capacity(String flightId) {
+        return counter(flightId).capacity;
+    }
+
+    public int availableSeats(String flightId) {
+        return counter(flightId).available.get();
+    }
+
+    public boolean tryReserve(String flightId, int seats) {
+        checkSeats(seats);
+        AtomicInteger available = counter(flightId).available;
+        int current;
+        do {
+            current = available.get();
+            if (current < seats) {
+                return false;
+            }
+        } while (!available.compareAndSet(current, current - seats));
+        return true;
+    }
+
+    // Reserves as many of the requested seats as are available and returns how many were taken
+    public int reserveUpTo(String flightId, int seats) {
+        checkSeats(seats);
+        AtomicInteger available = counter(flightId).available;
+        int current;
+        int taken;
+        do {
+            current = available.get();
+            taken = Math.min(current, seats);
+            if (taken <= 0) {
+                return 0;
+            }
+        } while (!available.compareAndSet(current, current - taken));
+        return taken;
+    }
+
+    // Reserves the same number of seats on every leg, or on none of them
+    public boolean tryReserveAll(List<String> flightIds, int seats) {
+        checkSeats(seats);
+        for (int leg = 0; leg < flightIds.size(); leg++) {
+            if (!tryReserve(flightIds.get(leg), seats)) {
+                for (int reserved = 0; reserved < leg; reserved++) {
+                    release(flightIds.get(reserved), seats);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns false, releasing nothing, if the seats would exceed the flight capacity
+    public boolean release(String flightId, int seats) {
+        checkSeats(seats);
+        SeatCounter counter = counter(flightId);
+        int current;
+        do {
+            current = counter.available.get();
+            if (current + seats > counter.capacity) {
+                return false;
+            }
+        } while (!counter.available.compareAndSet(current, current + seats));
+        return true;
+    }
+
+    // Releases as many of the seats as fit under the flight capacity and returns how many were released
+    public int releaseUpTo(String flightId, int seats) {
+        checkSeats(seats);
+        SeatCounter counter = counter(flightId);
+        int current;
+        int released;
+        do {
+            current = counter.available.get();
+            released = Math.min(counter.capacity - current, seats);
+            if (released <= 0) {
+                return 0;
+            }
+        } while (!counter.available.compareAndSet(current, current + released));
+        return released;
+    }
+
+    // Applies a seat delta without the availability and capacity checks. Used to replay logged changes, which
+    // may have been logged in a different order than they were applied, so only their sum is meaningful.
+    void adjustAvailableSeats(String flightId, int seats) {
+        counter(flightId).available.addAndGet(seats);
+    }
+
+    // Drops a flight whose registration could not be made durable
+    void removeFlight(String flightId) {
+        flights.remove(flightId);
+    }
+
+    // A non-positive count would move seats the wrong way past the availability and capacity checks
+    private static void checkSeats(int seats) {
+        if (seats <= 0) {
+            throw new IllegalArgumentException("Seat count must be positive: " + seats);
+        }
+    }
+
+    private SeatCounter counter(String flightId) {
+        SeatCounter counter = flights.get(flightId);
+        if (counter == null) {
+            throw new IllegalArgumentException("Unknown flight: " + flightId);
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,169 @@
+package activity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import activity.FraudDetectionSystem.FraudCheckResult;
+import activity.FraudDetectionSystem.Transaction;
+
+// Idempotent front for FraudDetectionEngine: a retried transaction (same account, amount, timestamp and location)
+// gets the decision of its first check instead of being scored, and recorded in the history, again. Concurrent
+// retries of one transaction are scored once: the first check publishes a pending decision and scores outside the
+// map, and the others wait for it. Decisions live for a fixed time and the cache is bounded; since every entry gets
+// the same time to live, insertion order is also expiry order, so one FIFO queue drives both size and TTL eviction.
+// A decision keeps the verdict of the amount, velocity and location rules from its first check, so when the
+// blacklist is replaced or the decision expires before it is evicted, a retry only re-applies the blacklist check
+// and the transaction is never recorded twice.
+public class FraudDecisionCache {
+
+    private record DecisionKey(String accountId, double amount, LocalDateTime timestamp, String location) {
+    }
+
+    private static class Decision {
+        final DecisionKey key;
+        // Verdict without the blacklist check, shared by every decision made for the same first check
+        final CompletableFuture<Integer> verdict;
+        final CompletableFuture<FraudCheckResult> result;
+        final LocationBlacklist blacklist;
+        final long expiresAtNanos;
+
+        Decision(DecisionKey key, CompletableFuture<Integer> verdict, LocationBlacklist blacklist, long expiresAtNanos) {
+            this.key = key;
+            this.verdict = verdict;
+            this.result = verdict.thenApply(v -> FraudDetectionSystem.toResult(
+                    blacklist.contains(key.location()) ? FraudDetectionSystem.blacklisted(v) : v));
+            this.blacklist = blacklist;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final FraudDetectionEngine engine;
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<DecisionKey, Decision> decisions = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Decision> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public FraudDecisionCache(FraudDetectionEngine engine, int maximumSize, Duration timeToLive) {
+        this(engine, maximumSize, timeToLive, System::nanoTime);
+    }
+
+    FraudDecisionCache(FraudDetectionEngine engine, int maximumSize, Duration timeToLive, LongSupplier nanoClock) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maximumSize);
+        }
+        this.engine = engine;
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    // Checks against the engine's current blacklist
+    public FraudCheckResult checkForFraud(String accountId, Transaction currentTransaction) {
+        return checkForFraud(accountId, currentTransaction, engine.getBlacklist());
+    }
+
+    public FraudCheckResult checkForFraud(String accountId, Transaction currentTransaction, LocationBlacklist blacklist) {
+        DecisionKey key = new DecisionKey(accountId, currentTransaction.amount, currentTransaction.timestamp,
+                currentTransaction.location);
+        long now = nanoClock.getAsLong();
+        while (true) {
+            Decision decision = decisions.get(key);
+            if (isValid(decision, blacklist, now)) {
+                hits.increment();
+                return decision.result.join();
+            }
+            if (decision == null) {
+                Decision pending = new Decision(key, new CompletableFuture<>(), blacklist, now + timeToLiveNanos);
+                if (decisions.putIfAbsent(key, pending) == null) {
+                    return score(pending, currentTransaction, now);
+                }
+            } else {
+                // A stale decision keeps its verdict; only the blacklist check and the expiry are redone
+                Decision renewed = new Decision(key, decision.verdict, blacklist, now + timeToLiveNanos);
+                if (decisions.replace(key, decision, renewed)) {
+                    misses.increment();
+                    insertionOrder.add(renewed);
+                    evict(now);
+                    return renewed.result.join();
+                }
+            }
+        }
+    }
+
+    public void invalidate(String accountId) {
+        decisions.keySet().removeIf(key -> key.accountId().equals(accountId));
+    }
+
+    public void invalidateAll() {
+        decisions.clear();
+        insertionOrder.clear();
+    }
+
+    public int size() {
+        return decisions.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private FraudCheckResult score(Decision pending, Transaction currentTransaction, long now) {
+        misses.increment();
+        try {
+            pending.verdict.complete(engine.recordAndScore(pending.key.accountId(), currentTransaction));
+        } catch (RuntimeException e) {
+            decisions.remove(pending.key, pending);
+            pending.verdict.completeExceptionally(e);
+            throw e;
+        }
+        insertionOrder.add(pending);
+        evict(now);
+        return pending.result.join();
+    }
+
+    private static boolean isValid(Decision decision, LocationBlacklist blacklist, long now) {
+        return decision != null && decision.blacklist == blacklist && decision.expiresAtNanos - now > 0;
+    }
+
+    // Drops expired decisions and then the oldest ones beyond the size bound. Queue entries whose decision was
+    // replaced or invalidated in the meantime are discarded without touching the newer entry. One thread evicts at a
+    // time, so the head it checked is the head it polls; a thread that finds eviction running leaves it to that one.
+    private void evict(long now) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            Decision oldest;
+            while ((oldest = insertionOrder.peek()) != null
+                    && (oldest.expiresAtNanos - now <= 0 || decisions.size() > maximumSize
+                    || decisions.get(oldest.key) != oldest)) {
+                Decision polled = insertionOrder.poll();
+                if (polled != null) {
+                    decisions.remove(polled.key, polled);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+}
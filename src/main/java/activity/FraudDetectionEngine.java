@@ -0,0 +1,117 @@
+package activity;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import activity.FraudDetectionSystem.FraudCheckResult;
+import activity.FraudDetectionSystem.Transaction;
+
+// Stateful counterpart of FraudDetectionSystem.checkForFraud. Each account keeps only the transactions
+// of the last hour in a ring buffer, so a check costs amortized O(1) instead of O(history).
+// Transactions of one account must be fed in timestamp order, as they would be appended to previousTransactions.
+public class FraudDetectionEngine {
+
+    private final ConcurrentHashMap<String, AccountWindow> accounts = new ConcurrentHashMap<>();
+
+    // Swapped atomically; checks already running keep the index they started with
+    private volatile LocationBlacklist blacklist = LocationBlacklist.empty();
+
+    public LocationBlacklist getBlacklist() {
+        return blacklist;
+    }
+
+    public void setBlacklist(LocationBlacklist blacklist) {
+        this.blacklist = blacklist;
+    }
+
+    public FraudCheckResult checkForFraud(String accountId, Transaction currentTransaction) {
+        return checkForFraud(accountId, currentTransaction, blacklist.contains(currentTransaction.location));
+    }
+
+    public FraudCheckResult checkForFraud(String accountId, Transaction currentTransaction, LocationBlacklist blacklist) {
+        return checkForFraud(accountId, currentTransaction, blacklist.contains(currentTransaction.location));
+    }
+
+    public FraudCheckResult checkForFraud(String accountId, Transaction currentTransaction, List<String> blacklistedLocations) {
+        return checkForFraud(accountId, currentTransaction, blacklistedLocations.contains(currentTransaction.location));
+    }
+
+    private FraudCheckResult checkForFraud(String accountId, Transaction currentTransaction, boolean blacklisted) {
+        AccountWindow window = accounts.computeIfAbsent(accountId, id -> new AccountWindow());
+        synchronized (window) {
+            window.evictExpired(currentTransaction);
+            FraudCheckResult result = FraudDetectionSystem.evaluate(currentTransaction, window.size, window.lastTransaction, blacklisted);
+            window.add(currentTransaction);
+            return result;
+        }
+    }
+
+    // Scores the transaction against the account history without the blacklist check, which the caller applies
+    // with FraudDetectionSystem.blacklisted, and records it like checkForFraud
+    int recordAndScore(String accountId, Transaction currentTransaction) {
+        AccountWindow window = accounts.computeIfAbsent(accountId, id -> new AccountWindow());
+        synchronized (window) {
+            window.evictExpired(currentTransaction);
+            int verdict = FraudDetectionSystem.verdict(currentTransaction, window.size, window.lastTransaction, false);
+            window.add(currentTransaction);
+            return verdict;
+        }
+    }
+
+    // Appends a transaction to the account history without scoring it, e.g. to warm up state after a restart
+    public void record(String accountId, Transaction transaction) {
+        AccountWindow window = accounts.computeIfAbsent(accountId, id -> new AccountWindow());
+        synchronized (window) {
+            window.evictExpired(transaction);
+            window.add(transaction);
+        }
+    }
+
+    public int recentTransactionCount(String accountId) {
+        AccountWindow window = accounts.get(accountId);
+        if (window == null) {
+            return 0;
+        }
+        synchronized (window) {
+            return window.size;
+        }
+    }
+
+    public void forget(String accountId) {
+        accounts.remove(accountId);
+    }
+
+    private static class AccountWindow {
+        private Transaction[] buffer = new Transaction[16];
+        private int head;
+        private int size;
+        private Transaction lastTransaction;
+
+        // Older entries leave the window first, so eviction only ever looks at the head
+        void evictExpired(Transaction currentTransaction) {
+            while (size > 0 && !FraudDetectionSystem.isWithinVelocityWindow(buffer[head], currentTransaction)) {
+                buffer[head] = null;
+                head = (head + 1) % buffer.length;
+                size--;
+            }
+        }
+
+        void add(Transaction transaction) {
+            if (size == buffer.length) {
+                grow();
+            }
+            buffer[(head + size) % buffer.length] = transaction;
+            size++;
+            lastTransaction = transaction;
+        }
+
+        private void grow() {
+            Transaction[] grown = new Transaction[buffer.length * 2];
+            for (int i = 0; i < size; i++) {
+                grown[i] = buffer[(head + i) % buffer.length];
+            }
+            buffer = grown;
+            head = 0;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package activity;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.BitSet;
 import java.util.List;
 
 public class FraudDetectionSystem {
@@ -18,6 +19,16 @@ public class FraudDetectionSystem {
         }
     }
 
+    public static class AccountTransaction {
+        String accountId;
+        Transaction transaction;
+
+        public AccountTransaction(String accountId, Transaction transaction) {
+            this.accountId = accountId;
+            this.transaction = transaction;
+        }
+    }
+
     public static class FraudCheckResult {
         boolean isFraudulent;
         boolean isBlocked;
@@ -32,48 +43,154 @@ public class FraudDetectionSystem {
         }
     }
 
+    static final double HIGH_AMOUNT_THRESHOLD = 10000;
+    static final int VELOCITY_WINDOW_MINUTES = 60;
+    static final int MAX_RECENT_TRANSACTIONS = 10;
+    static final int LOCATION_CHANGE_WINDOW_MINUTES = 30;
+    private static final long MILLIS_PER_MINUTE = 60_000;
+
+    // Flag bits written by checkForFraudBatch
+    public static final int FLAG_FRAUDULENT = 1;
+    public static final int FLAG_BLOCKED = 1 << 1;
+    public static final int FLAG_VERIFICATION_REQUIRED = 1 << 2;
+    static final int FLAG_MASK = FLAG_FRAUDULENT | FLAG_BLOCKED | FLAG_VERIFICATION_REQUIRED;
+    static final int RISK_SCORE_SHIFT = 3;
+
+    private final FraudRuleEngine ruleEngine;
+    private final DecisionMetrics metrics;
+
+    public FraudDetectionSystem() {
+        this(FraudRuleEngine.withDefaultRules());
+    }
+
+    public FraudDetectionSystem(FraudRuleEngine ruleEngine) {
+        this(ruleEngine, DecisionMetrics.DISABLED);
+    }
+
+    // Records checkForFraud calls, latencies and outcomes, and the default rules' hits, into metrics
+    public FraudDetectionSystem(DecisionMetrics metrics) {
+        this(FraudRuleEngine.withDefaultRules(metrics), metrics);
+    }
+
+    public FraudDetectionSystem(FraudRuleEngine ruleEngine, DecisionMetrics metrics) {
+        this.ruleEngine = ruleEngine;
+        this.metrics = metrics;
+    }
+
+    // Extra rules run alongside the built-in ones, ordered by their cost estimate
+    public void registerRule(FraudRule rule) {
+        ruleEngine.register(rule);
+    }
+
     public FraudCheckResult checkForFraud(Transaction currentTransaction, List<Transaction> previousTransactions, List<String> blacklistedLocations) {
-        boolean isFraudulent = false;
-        boolean isBlocked = false;
-        boolean verificationRequired = false;
+        return check(new FraudRuleEngine.Context(currentTransaction, previousTransactions, blacklistedLocations::contains));
+    }
+
+    public FraudCheckResult checkForFraud(Transaction currentTransaction, List<Transaction> previousTransactions, LocationBlacklist blacklist) {
+        return check(new FraudRuleEngine.Context(currentTransaction, previousTransactions, blacklist::contains));
+    }
+
+    private FraudCheckResult check(FraudRuleEngine.Context context) {
+        long start = metrics.startTimer();
+        try {
+            FraudCheckResult result = ruleEngine.evaluate(context);
+            if (result.isFraudulent) {
+                metrics.increment("fraud.fraudulent");
+            }
+            if (result.isBlocked) {
+                metrics.increment("fraud.blocked");
+            }
+            return result;
+        } finally {
+            metrics.recordCall("fraud.checkForFraud", start);
+        }
+    }
+
+    static boolean isWithinVelocityWindow(Transaction transaction, Transaction currentTransaction) {
+        return Duration.between(transaction.timestamp, currentTransaction.timestamp).toMinutes() <= VELOCITY_WINDOW_MINUTES;
+    }
+
+    // Applies the fraud rules once the history has been reduced to the recent transaction count and the last transaction
+    static FraudCheckResult evaluate(Transaction currentTransaction, int recentTransactionCount,
+                                     Transaction lastTransaction, boolean blacklisted) {
+        return toResult(verdict(currentTransaction, recentTransactionCount, lastTransaction, blacklisted));
+    }
+
+    static int verdict(Transaction currentTransaction, int recentTransactionCount, Transaction lastTransaction,
+                       boolean blacklisted) {
+        // Check for location change within a short time frame
+        boolean rapidLocationChange = false;
+        if (lastTransaction != null) {
+            long minutesSinceLastTransaction = Duration.between(lastTransaction.timestamp, currentTransaction.timestamp).toMinutes();
+            rapidLocationChange = minutesSinceLastTransaction < LOCATION_CHANGE_WINDOW_MINUTES
+                    && !lastTransaction.location.equals(currentTransaction.location);
+        }
+
+        return verdict(currentTransaction.amount, recentTransactionCount, rapidLocationChange, blacklisted);
+    }
+
+    static FraudCheckResult toResult(int verdict) {
+        return new FraudCheckResult((verdict & FLAG_FRAUDULENT) != 0, (verdict & FLAG_BLOCKED) != 0,
+                (verdict & FLAG_VERIFICATION_REQUIRED) != 0, verdict >>> RISK_SCORE_SHIFT);
+    }
+
+    // Returns the flag bits with the risk score packed above them, so hot loops can score without allocating
+    static int verdict(double amount, int recentTransactionCount, boolean rapidLocationChange, boolean blacklisted) {
+        int flags = 0;
         int riskScore = 0;
 
         // Check transaction amount
-        if (currentTransaction.amount > 10000) {
-            isFraudulent = true;
-            verificationRequired = true;
+        if (amount > HIGH_AMOUNT_THRESHOLD) {
+            flags |= FLAG_FRAUDULENT | FLAG_VERIFICATION_REQUIRED;
             riskScore += 50;
         }
 
         // Check for excessive transactions in the last hour
-        int recentTransactionCount = 0;
-        for (Transaction transaction : previousTransactions) {
-            if (Duration.between(transaction.timestamp, currentTransaction.timestamp).toMinutes() <= 60) {
-                recentTransactionCount++;
-            }
-        }
-        if (recentTransactionCount > 10) {
-            isBlocked = true;
+        if (recentTransactionCount > MAX_RECENT_TRANSACTIONS) {
+            flags |= FLAG_BLOCKED;
             riskScore += 30;
         }
 
         // Check for location change within a short time frame
-        if (!previousTransactions.isEmpty()) {
-            Transaction lastTransaction = previousTransactions.get(previousTransactions.size() - 1);
-            long minutesSinceLastTransaction = Duration.between(lastTransaction.timestamp, currentTransaction.timestamp).toMinutes();
-            if (minutesSinceLastTransaction < 30 && !lastTransaction.location.equals(currentTransaction.location)) {
-                isFraudulent = true;
-                verificationRequired = true;
-                riskScore += 20;
-            }
+        if (rapidLocationChange) {
+            flags |= FLAG_FRAUDULENT | FLAG_VERIFICATION_REQUIRED;
+            riskScore += 20;
         }
 
-        // Blacklist check
-        if (blacklistedLocations.contains(currentTransaction.location)) {
-            isBlocked = true;
-            riskScore = 100;
-        }
+        int verdict = riskScore << RISK_SCORE_SHIFT | flags;
+        return blacklisted ? blacklisted(verdict) : verdict;
+    }
+
+    // Blacklist check, applied on its own to a verdict of the other rules: blocks and overrides the risk score
+    static int blacklisted(int verdict) {
+        return 100 << RISK_SCORE_SHIFT | verdict & FLAG_MASK | FLAG_BLOCKED;
+    }
 
-        return new FraudCheckResult(isFraudulent, isBlocked, verificationRequired, riskScore);
+    public void checkForFraudBatch(double[] amounts, long[] epochMillis, int[] locationIds, BitSet blacklistedLocationIds,
+                                   int[] riskScores, byte[] flags) {
+        checkForFraudBatch(amounts, epochMillis, locationIds, 0, amounts.length, blacklistedLocationIds, riskScores, flags);
+    }
+
+    // Scores rows [offset, offset + length) as one account's history in timestamp order: each row is checked against
+    // the rows before it, exactly as checkForFraud would be with those rows as previousTransactions.
+    // Location ids come from a LocationDictionary; results are written to the same rows of riskScores and flags.
+    public void checkForFraudBatch(double[] amounts, long[] epochMillis, int[] locationIds, int offset, int length,
+                                   BitSet blacklistedLocationIds, int[] riskScores, byte[] flags) {
+        int end = offset + length;
+        int windowStart = offset;
+        for (int i = offset; i < end; i++) {
+            long timestamp = epochMillis[i];
+            while ((timestamp - epochMillis[windowStart]) / MILLIS_PER_MINUTE > VELOCITY_WINDOW_MINUTES) {
+                windowStart++;
+            }
+
+            boolean rapidLocationChange = i > offset
+                    && (timestamp - epochMillis[i - 1]) / MILLIS_PER_MINUTE < LOCATION_CHANGE_WINDOW_MINUTES
+                    && locationIds[i - 1] != locationIds[i];
+
+            int verdict = verdict(amounts[i], i - windowStart, rapidLocationChange, blacklistedLocationIds.get(locationIds[i]));
+            riskScores[i] = verdict >>> RISK_SCORE_SHIFT;
+            flags[i] = (byte) (verdict & FLAG_MASK);
+        }
     }
 }
@@ -0,0 +1,18 @@
+package activity;
+
+import activity.FraudRuleEngine.Context;
+import activity.FraudRuleEngine.Verdict;
+
+// One check of the fraud pipeline. The engine runs rules from the cheapest cost estimate up and skips a rule
+// once every output it affects (FraudDetectionSystem flag bits and Verdict.RISK_SCORE) is settled.
+public interface FraudRule {
+
+    String name();
+
+    int cost();
+
+    int affects();
+
+    // Returns true if the rule fired
+    boolean evaluate(Context context, Verdict verdict);
+}
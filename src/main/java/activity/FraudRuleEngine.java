@@ -0,0 +1,240 @@
+package activity;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+import activity.FraudDetectionSystem.FraudCheckResult;
+import activity.FraudDetectionSystem.Transaction;
+
+import static activity.FraudDetectionSystem.FLAG_BLOCKED;
+import static activity.FraudDetectionSystem.FLAG_FRAUDULENT;
+import static activity.FraudDetectionSystem.FLAG_VERIFICATION_REQUIRED;
+
+// Pluggable fraud rule pipeline. Rules are kept sorted by cost, so the cheap decisive checks (amount, blacklist)
+// run before the history scan, which is skipped entirely once the blacklist has settled the outcome.
+public class FraudRuleEngine {
+
+    public static class Context {
+        Transaction currentTransaction;
+        List<Transaction> previousTransactions;
+        Predicate<String> blacklistedLocations;
+
+        public Context(Transaction currentTransaction, List<Transaction> previousTransactions,
+                       Predicate<String> blacklistedLocations) {
+            this.currentTransaction = currentTransaction;
+            this.previousTransactions = previousTransactions;
+            this.blacklistedLocations = blacklistedLocations;
+        }
+    }
+
+    // Flags only ever get set, so a set flag is settled; the risk score is settled once a rule overrides it
+    public static class Verdict {
+        public static final int RISK_SCORE = 1 << 3;
+
+        int flags;
+        int riskScore;
+        boolean riskScoreFinal;
+
+        public void flag(int flags) {
+            this.flags |= flags;
+        }
+
+        public void addRisk(int risk) {
+            if (!riskScoreFinal) {
+                riskScore += risk;
+            }
+        }
+
+        public void overrideRisk(int riskScore) {
+            this.riskScore = riskScore;
+            this.riskScoreFinal = true;
+        }
+
+        public int settled() {
+            return riskScoreFinal ? flags | RISK_SCORE : flags;
+        }
+    }
+
+    private static final Comparator<RegisteredRule> BY_COST = Comparator.comparingInt(registered -> registered.rule().cost());
+
+    // The hit counter name is built once at registration, so counting a firing rule allocates nothing
+    private record RegisteredRule(FraudRule rule, String hitCounter) {
+    }
+
+    private final DecisionMetrics metrics;
+
+    // Replaced on registration, so evaluations never see a half-updated pipeline
+    private volatile RegisteredRule[] rules = new RegisteredRule[0];
+
+    public FraudRuleEngine() {
+        this(DecisionMetrics.DISABLED);
+    }
+
+    // Counts every rule that fires as "fraud.rule.<name>"
+    public FraudRuleEngine(DecisionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public static FraudRuleEngine withDefaultRules() {
+        return withDefaultRules(DecisionMetrics.DISABLED);
+    }
+
+    public static FraudRuleEngine withDefaultRules(DecisionMetrics metrics) {
+        FraudRuleEngine engine = new FraudRuleEngine(metrics);
+        engine.register(new AmountRule());
+        engine.register(new BlacklistRule());
+        engine.register(new LocationChangeRule());
+        engine.register(new VelocityRule());
+        return engine;
+    }
+
+    public synchronized void register(FraudRule rule) {
+        RegisteredRule[] registered = Arrays.copyOf(rules, rules.length + 1);
+        registered[rules.length] = new RegisteredRule(rule, "fraud.rule." + rule.name());
+        // Stable sort: rules with the same cost keep their registration order
+        Arrays.sort(registered, BY_COST);
+        rules = registered;
+    }
+
+    public List<FraudRule> rules() {
+        return Arrays.stream(rules).map(RegisteredRule::rule).toList();
+    }
+
+    public FraudCheckResult evaluate(Context context) {
+        Verdict verdict = new Verdict();
+        for (RegisteredRule registered : rules) {
+            if ((registered.rule().affects() & ~verdict.settled()) != 0 && registered.rule().evaluate(context, verdict)) {
+                metrics.increment(registered.hitCounter());
+            }
+        }
+        return FraudDetectionSystem.toResult(verdict.riskScore << FraudDetectionSystem.RISK_SCORE_SHIFT
+                | verdict.flags & FraudDetectionSystem.FLAG_MASK);
+    }
+
+    // Check transaction amount
+    static class AmountRule implements FraudRule {
+        @Override
+        public String name() {
+            return "amount";
+        }
+
+        @Override
+        public int cost() {
+            return 1;
+        }
+
+        @Override
+        public int affects() {
+            return FLAG_FRAUDULENT | FLAG_VERIFICATION_REQUIRED | Verdict.RISK_SCORE;
+        }
+
+        @Override
+        public boolean evaluate(Context context, Verdict verdict) {
+            if (context.currentTransaction.amount > FraudDetectionSystem.HIGH_AMOUNT_THRESHOLD) {
+                verdict.flag(FLAG_FRAUDULENT | FLAG_VERIFICATION_REQUIRED);
+                verdict.addRisk(50);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // Blacklisted locations are always blocked with the maximum risk score
+    static class BlacklistRule implements FraudRule {
+        @Override
+        public String name() {
+            return "blacklist";
+        }
+
+        @Override
+        public int cost() {
+            return 2;
+        }
+
+        @Override
+        public int affects() {
+            return FLAG_BLOCKED | Verdict.RISK_SCORE;
+        }
+
+        @Override
+        public boolean evaluate(Context context, Verdict verdict) {
+            if (context.blacklistedLocations.test(context.currentTransaction.location)) {
+                verdict.flag(FLAG_BLOCKED);
+                verdict.overrideRisk(100);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // Check for location change within a short time frame
+    static class LocationChangeRule implements FraudRule {
+        @Override
+        public String name() {
+            return "locationChange";
+        }
+
+        @Override
+        public int cost() {
+            return 3;
+        }
+
+        @Override
+        public int affects() {
+            return FLAG_FRAUDULENT | FLAG_VERIFICATION_REQUIRED | Verdict.RISK_SCORE;
+        }
+
+        @Override
+        public boolean evaluate(Context context, Verdict verdict) {
+            List<Transaction> previousTransactions = context.previousTransactions;
+            if (previousTransactions.isEmpty()) {
+                return false;
+            }
+            Transaction lastTransaction = previousTransactions.get(previousTransactions.size() - 1);
+            Transaction currentTransaction = context.currentTransaction;
+            long minutesSinceLastTransaction = Duration.between(lastTransaction.timestamp, currentTransaction.timestamp).toMinutes();
+            if (minutesSinceLastTransaction < FraudDetectionSystem.LOCATION_CHANGE_WINDOW_MINUTES
+                    && !lastTransaction.location.equals(currentTransaction.location)) {
+                verdict.flag(FLAG_FRAUDULENT | FLAG_VERIFICATION_REQUIRED);
+                verdict.addRisk(20);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // Check for excessive transactions in the last hour; scans the history, so it runs last
+    static class VelocityRule implements FraudRule {
+        @Override
+        public String name() {
+            return "velocity";
+        }
+
+        @Override
+        public int cost() {
+            return 100;
+        }
+
+        @Override
+        public int affects() {
+            return FLAG_BLOCKED | Verdict.RISK_SCORE;
+        }
+
+        @Override
+        public boolean evaluate(Context context, Verdict verdict) {
+            int recentTransactionCount = 0;
+            for (Transaction transaction : context.previousTransactions) {
+                if (FraudDetectionSystem.isWithinVelocityWindow(transaction, context.currentTransaction)
+                        && ++recentTransactionCount > FraudDetectionSystem.MAX_RECENT_TRANSACTIONS) {
+                    verdict.flag(FLAG_BLOCKED);
+                    verdict.addRisk(30);
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package activity;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import activity.FraudDetectionSystem.AccountTransaction;
+import activity.FraudDetectionSystem.FraudCheckResult;
+
+// Streaming front-end of FraudDetectionEngine. Upstream events are hashed by account onto single-threaded lanes,
+// so one account's events are scored in arrival order while other accounts proceed on other lanes.
+// At most bufferCapacity events are requested from upstream and not yet scored, which bounds the lane queues.
+// Completion is queued behind the pending events on every lane, so upstream's thread never waits for scoring;
+// a scoring failure cancels upstream, fails downstream and stops the lanes.
+public class FraudStreamProcessor extends SubmissionPublisher<FraudStreamProcessor.ScoredTransaction>
+        implements Flow.Processor<AccountTransaction, FraudStreamProcessor.ScoredTransaction> {
+
+    public static class ScoredTransaction {
+        AccountTransaction accountTransaction;
+        FraudCheckResult result;
+
+        public ScoredTransaction(AccountTransaction accountTransaction, FraudCheckResult result) {
+            this.accountTransaction = accountTransaction;
+            this.result = result;
+        }
+    }
+
+    private final FraudDetectionEngine engine;
+    private final ExecutorService[] lanes;
+    private final int bufferCapacity;
+    private volatile Flow.Subscription subscription;
+
+    public FraudStreamProcessor(FraudDetectionEngine engine, int laneCount, int bufferCapacity) {
+        super(ForkJoinPool.commonPool(), bufferCapacity);
+        this.engine = engine;
+        this.bufferCapacity = bufferCapacity;
+        this.lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor();
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(bufferCapacity);
+    }
+
+    @Override
+    public void onNext(AccountTransaction accountTransaction) {
+        // After a failure upstream is cancelled, but events already in flight may still arrive
+        if (isClosed()) {
+            return;
+        }
+        try {
+            lanes[Math.floorMod(accountTransaction.accountId.hashCode(), lanes.length)].execute(() -> {
+                if (isClosed()) {
+                    return;
+                }
+                try {
+                    FraudCheckResult result = engine.checkForFraud(accountTransaction.accountId, accountTransaction.transaction);
+                    // Blocks while downstream buffers are full, which in turn holds back upstream demand
+                    submit(new ScoredTransaction(accountTransaction, result));
+                    subscription.request(1);
+                } catch (RuntimeException e) {
+                    fail(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The lanes were stopped by a failure after the isClosed check
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        finishLanes(() -> closeExceptionally(throwable));
+    }
+
+    @Override
+    public void onComplete() {
+        finishLanes(this::close);
+    }
+
+    // True once every lane thread has exited
+    boolean awaitLanes(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ExecutorService lane : lanes) {
+            if (!lane.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Queues a last task on every lane; the lane that runs the last of them has seen every other lane finish its
+    // events, so it closes downstream and lets the lane threads exit
+    private void finishLanes(Runnable closeDownstream) {
+        AtomicInteger unfinishedLanes = new AtomicInteger(lanes.length);
+        for (ExecutorService lane : lanes) {
+            try {
+                lane.execute(() -> {
+                    if (unfinishedLanes.decrementAndGet() == 0) {
+                        closeDownstream.run();
+                        for (ExecutorService finishedLane : lanes) {
+                            finishedLane.shutdown();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Already stopped by a failure, which closed downstream
+            }
+        }
+    }
+
+    private void fail(RuntimeException failure) {
+        subscription.cancel();
+        closeExceptionally(failure);
+        // Upstream may never signal completion after the cancel, so the lanes are stopped here; lanes blocked in
+        // submit are interrupted
+        for (ExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+}
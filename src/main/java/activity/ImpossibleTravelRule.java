@@ -0,0 +1,76 @@
+package activity;
+
+import java.time.Duration;
+import java.util.List;
+
+import activity.FraudDetectionSystem.Transaction;
+import activity.FraudRuleEngine.Context;
+import activity.FraudRuleEngine.Verdict;
+import activity.LocationResolver.ResolvedLocation;
+
+import static activity.FraudDetectionSystem.FLAG_FRAUDULENT;
+import static activity.FraudDetectionSystem.FLAG_VERIFICATION_REQUIRED;
+
+// Flags a transaction whose distance from the previous one could not have been covered at maxSpeedKmh, whatever
+// the time between them. Complements the location-change rule, which only compares location strings inside its
+// window. Transactions at locations the resolver does not know are never flagged by this rule.
+public class ImpossibleTravelRule implements FraudRule {
+
+    private static final double MILLIS_PER_HOUR = 3_600_000;
+    // Between the location-change rule (20), which a trip to a neighbouring town also trips, and the high-amount
+    // rule (50): the trip is physically impossible, but dataset coordinates are only city-level and a shared
+    // card can legitimately be used in two places
+    private static final int IMPOSSIBLE_TRAVEL_RISK = 40;
+
+    private final LocationResolver resolver;
+    private final double maxSpeedKmh;
+
+    public ImpossibleTravelRule(LocationResolver resolver, double maxSpeedKmh) {
+        this.resolver = resolver;
+        this.maxSpeedKmh = maxSpeedKmh;
+    }
+
+    @Override
+    public String name() {
+        return "impossibleTravel";
+    }
+
+    // Two lock-free lookups and a haversine: dearer than the string checks, far cheaper than the history scan
+    @Override
+    public int cost() {
+        return 10;
+    }
+
+    @Override
+    public int affects() {
+        return FLAG_FRAUDULENT | FLAG_VERIFICATION_REQUIRED | Verdict.RISK_SCORE;
+    }
+
+    @Override
+    public boolean evaluate(Context context, Verdict verdict) {
+        List<Transaction> previousTransactions = context.previousTransactions;
+        if (previousTransactions.isEmpty()) {
+            return false;
+        }
+        Transaction lastTransaction = previousTransactions.get(previousTransactions.size() - 1);
+        Transaction currentTransaction = context.currentTransaction;
+        if (lastTransaction.location.equals(currentTransaction.location)) {
+            return false;
+        }
+        ResolvedLocation from = resolver.resolve(lastTransaction.location);
+        ResolvedLocation to = resolver.resolve(currentTransaction.location);
+        if (!from.isKnown() || !to.isKnown()) {
+            return false;
+        }
+
+        double distanceKm = from.distanceKm(to);
+        double hours = Duration.between(lastTransaction.timestamp, currentTransaction.timestamp).toMillis() / MILLIS_PER_HOUR;
+        // Compared as distance against reachable distance, so simultaneous transactions need no division by zero
+        if (distanceKm > maxSpeedKmh * Math.max(0, hours)) {
+            verdict.flag(FLAG_FRAUDULENT | FLAG_VERIFICATION_REQUIRED);
+            verdict.addRisk(IMPOSSIBLE_TRAVEL_RISK);
+            return true;
+        }
+        return false;
+    }
+}
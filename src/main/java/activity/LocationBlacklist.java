@@ -0,0 +1,84 @@
+package activity;
+
+import java.util.Collection;
+
+// Immutable blacklist index built once and shared between threads. Lookups go through a Bloom filter first,
+// so most clean locations are rejected without touching the open-addressing table.
+public final class LocationBlacklist {
+
+    private static final int BLOOM_BITS_PER_LOCATION = 10;
+    private static final LocationBlacklist EMPTY = new LocationBlacklist(new String[0]);
+
+    private final String[] slots;
+    private final int slotMask;
+    private final long[] bloom;
+    private final int bloomMask;
+    private final int size;
+
+    private LocationBlacklist(String[] locations) {
+        int slotCount = tableSizeFor(Math.max(2, locations.length * 2));
+        slots = new String[slotCount];
+        slotMask = slotCount - 1;
+        int bloomBits = tableSizeFor(Math.max(64, locations.length * BLOOM_BITS_PER_LOCATION));
+        bloom = new long[bloomBits >>> 6];
+        bloomMask = bloomBits - 1;
+
+        int inserted = 0;
+        for (String location : locations) {
+            int hash = spread(location.hashCode());
+            int slot = hash & slotMask;
+            while (slots[slot] != null && !slots[slot].equals(location)) {
+                slot = (slot + 1) & slotMask;
+            }
+            if (slots[slot] == null) {
+                slots[slot] = location;
+                inserted++;
+                for (int probe = 0, h = hash; probe < 3; probe++, h = Integer.rotateLeft(h, 11) * 0x9E3779B9) {
+                    int bit = h & bloomMask;
+                    bloom[bit >>> 6] |= 1L << bit;
+                }
+            }
+        }
+        size = inserted;
+    }
+
+    public static LocationBlacklist of(Collection<String> locations) {
+        return locations.isEmpty() ? EMPTY : new LocationBlacklist(locations.toArray(new String[0]));
+    }
+
+    public static LocationBlacklist empty() {
+        return EMPTY;
+    }
+
+    public boolean contains(String location) {
+        int hash = spread(location.hashCode());
+        for (int probe = 0, h = hash; probe < 3; probe++, h = Integer.rotateLeft(h, 11) * 0x9E3779B9) {
+            int bit = h & bloomMask;
+            if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        int slot = hash & slotMask;
+        String candidate;
+        while ((candidate = slots[slot]) != null) {
+            if (candidate.equals(location)) {
+                return true;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static int spread(int hashCode) {
+        int h = hashCode * 0x85EBCA6B;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+}
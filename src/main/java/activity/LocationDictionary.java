@@ -0,0 +1,50 @@
+package activity;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Interns location strings to dense int ids, so columnar fraud checks can compare locations as ints
+public class LocationDictionary {
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> locations = new ArrayList<>();
+
+    public int intern(String location) {
+        Integer id = ids.get(location);
+        if (id != null) {
+            return id;
+        }
+        synchronized (locations) {
+            return ids.computeIfAbsent(location, key -> {
+                locations.add(key);
+                return locations.size() - 1;
+            });
+        }
+    }
+
+    // Returns -1 for locations that were never interned
+    public int idOf(String location) {
+        return ids.getOrDefault(location, -1);
+    }
+
+    public String location(int id) {
+        synchronized (locations) {
+            return locations.get(id);
+        }
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public BitSet idsOf(Collection<String> locations) {
+        BitSet bits = new BitSet();
+        for (String location : locations) {
+            bits.set(intern(location));
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,196 @@
+package activity;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Resolves transaction location strings to coordinates. Named locations come from a dataset file of
+// "name,latitude,longitude" lines and are interned in a LocationDictionary; a dataset name resolves lock-free
+// through the dictionary to an id-indexed table. Other strings (literal "latitude,longitude" pairs and unknown
+// names) are parsed and kept in a size-bounded concurrent cache, so a hot literal is not parsed again.
+public class LocationResolver {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    public static class ResolvedLocation {
+        final int id;
+        final double latitude;
+        final double longitude;
+
+        public ResolvedLocation(int id, double latitude, double longitude) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        // Unknown locations have no coordinates
+        public boolean isKnown() {
+            return !Double.isNaN(latitude);
+        }
+
+        // Great-circle distance (haversine)
+        public double distanceKm(ResolvedLocation other) {
+            double deltaLatitude = Math.toRadians(other.latitude - latitude);
+            double deltaLongitude = Math.toRadians(other.longitude - longitude);
+            double a = Math.sin(deltaLatitude / 2) * Math.sin(deltaLatitude / 2)
+                    + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(other.latitude))
+                    * Math.sin(deltaLongitude / 2) * Math.sin(deltaLongitude / 2);
+            return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+        }
+    }
+
+    private static final ResolvedLocation UNKNOWN = new ResolvedLocation(-1, Double.NaN, Double.NaN);
+
+    private final LocationDictionary dictionary;
+    private final int cacheSize;
+    // Serializes add; resolve never locks
+    private final ReentrantLock lock = new ReentrantLock();
+    // Dataset locations by dictionary id, null for ids without coordinates. Grown by copying under the lock;
+    // entries are immutable, so a reader that sees one also sees its coordinates.
+    private volatile ResolvedLocation[] datasetLocations = new ResolvedLocation[0];
+    private final ConcurrentHashMap<String, ResolvedLocation> cache = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public LocationResolver(LocationDictionary dictionary, int cacheSize) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + cacheSize);
+        }
+        this.dictionary = dictionary;
+        this.cacheSize = cacheSize;
+    }
+
+    // Loads a dataset of "name,latitude,longitude" lines; blank lines and lines starting with # are skipped.
+    // The coordinates are split off at the last two commas, so names may contain commas themselves.
+    public static LocationResolver load(Path dataset, LocationDictionary dictionary, int cacheSize) throws IOException {
+        LocationResolver resolver = new LocationResolver(dictionary, cacheSize);
+        try (BufferedReader reader = Files.newBufferedReader(dataset)) {
+            int lineNumber = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                int longitudeComma = line.lastIndexOf(',');
+                int latitudeComma = longitudeComma < 0 ? -1 : line.lastIndexOf(',', longitudeComma - 1);
+                if (latitudeComma <= 0) {
+                    throw new IOException("Malformed location at line " + lineNumber + ": " + line);
+                }
+                try {
+                    resolver.add(line.substring(0, latitudeComma).trim(),
+                            Double.parseDouble(line.substring(latitudeComma + 1, longitudeComma).trim()),
+                            Double.parseDouble(line.substring(longitudeComma + 1).trim()));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Malformed location at line " + lineNumber + ": " + line, e);
+                }
+            }
+        }
+        return resolver;
+    }
+
+    public void add(String location, double latitude, double longitude) {
+        if (!isValid(latitude, longitude)) {
+            throw new IllegalArgumentException("Invalid coordinates for " + location + ": " + latitude + "," + longitude);
+        }
+        int id = dictionary.intern(location);
+        lock.lock();
+        try {
+            ResolvedLocation[] locations = datasetLocations;
+            if (id >= locations.length) {
+                locations = Arrays.copyOf(locations, Math.max(id + 1, 2 * locations.length));
+            }
+            locations[id] = new ResolvedLocation(id, latitude, longitude);
+            datasetLocations = locations;
+            cache.remove(location);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Never returns null; locations that are neither in the dataset nor a coordinate literal resolve to an
+    // unknown location
+    public ResolvedLocation resolve(String location) {
+        int id = dictionary.idOf(location);
+        ResolvedLocation[] locations = datasetLocations;
+        if (id >= 0 && id < locations.length && locations[id] != null) {
+            return locations[id];
+        }
+        ResolvedLocation resolved = cache.get(location);
+        if (resolved != null) {
+            hits.increment();
+            return resolved;
+        }
+        misses.increment();
+        resolved = parse(location, id);
+        if (cache.putIfAbsent(location, resolved) == null && cache.size() > cacheSize) {
+            evictOtherThan(location);
+        }
+        return resolved;
+    }
+
+    public LocationDictionary dictionary() {
+        return dictionary;
+    }
+
+    // Locations held by the cache of strings outside the dataset
+    public int cacheSize() {
+        return cache.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    private static ResolvedLocation parse(String location, int id) {
+        ResolvedLocation literal = parseCoordinates(location);
+        if (literal != null) {
+            return literal;
+        }
+        return id >= 0 ? new ResolvedLocation(id, Double.NaN, Double.NaN) : UNKNOWN;
+    }
+
+    // Any entry will do: the cache only saves parsing, so eviction order does not affect results
+    private void evictOtherThan(String location) {
+        Iterator<String> locations = cache.keySet().iterator();
+        while (locations.hasNext()) {
+            if (!locations.next().equals(location)) {
+                locations.remove();
+                return;
+            }
+        }
+    }
+
+    // Literal locations are not interned, so arbitrary coordinates cannot grow the dictionary
+    private static ResolvedLocation parseCoordinates(String location) {
+        int comma = location.indexOf(',');
+        if (comma <= 0 || comma != location.lastIndexOf(',') || !startsLikeNumber(location)) {
+            return null;
+        }
+        try {
+            double latitude = Double.parseDouble(location.substring(0, comma).trim());
+            double longitude = Double.parseDouble(location.substring(comma + 1).trim());
+            return isValid(latitude, longitude) ? new ResolvedLocation(-1, latitude, longitude) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean startsLikeNumber(String location) {
+        char first = location.charAt(0);
+        return first >= '0' && first <= '9' || first == '-' || first == '+' || first == '.';
+    }
+
+    private static boolean isValid(double latitude, double longitude) {
+        return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+}
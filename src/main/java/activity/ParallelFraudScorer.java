@@ -0,0 +1,73 @@
+package activity;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import activity.FraudDetectionSystem.AccountTransaction;
+import activity.FraudDetectionSystem.FraudCheckResult;
+
+// Re-scores a batch of traffic in parallel. Transactions are partitioned by account so each account's
+// history is replayed in input order on one thread, which keeps the velocity and location-change rules
+// identical to sequential scoring; different accounts are scored concurrently on a dedicated ForkJoinPool.
+public class ParallelFraudScorer implements AutoCloseable {
+
+    private final ForkJoinPool pool;
+
+    public ParallelFraudScorer(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    // Results are returned in input order; each account's transactions must be in timestamp order
+    public FraudCheckResult[] score(List<AccountTransaction> transactions, LocationBlacklist blacklist) {
+        int size = transactions.size();
+
+        // Counting sort of row indices by account, keeping input order within an account
+        Map<String, Integer> accountOrdinals = new HashMap<>();
+        int[] rowAccounts = new int[size];
+        for (int row = 0; row < size; row++) {
+            String accountId = transactions.get(row).accountId;
+            Integer ordinal = accountOrdinals.get(accountId);
+            if (ordinal == null) {
+                ordinal = accountOrdinals.size();
+                accountOrdinals.put(accountId, ordinal);
+            }
+            rowAccounts[row] = ordinal;
+        }
+        int accountCount = accountOrdinals.size();
+        int[] partitionStarts = new int[accountCount + 1];
+        for (int row = 0; row < size; row++) {
+            partitionStarts[rowAccounts[row] + 1]++;
+        }
+        for (int account = 0; account < accountCount; account++) {
+            partitionStarts[account + 1] += partitionStarts[account];
+        }
+        int[] partitionRows = new int[size];
+        int[] cursors = partitionStarts.clone();
+        for (int row = 0; row < size; row++) {
+            partitionRows[cursors[rowAccounts[row]]++] = row;
+        }
+
+        FraudCheckResult[] results = new FraudCheckResult[size];
+        FraudDetectionEngine engine = new FraudDetectionEngine();
+        pool.submit(() -> IntStream.range(0, accountCount).parallel().forEach(account -> {
+            for (int i = partitionStarts[account]; i < partitionStarts[account + 1]; i++) {
+                int row = partitionRows[i];
+                AccountTransaction accountTransaction = transactions.get(row);
+                results[row] = engine.checkForFraud(accountTransaction.accountId, accountTransaction.transaction, blacklist);
+            }
+        })).join();
+        return results;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,101 @@
+package activity;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Reward point balances with two-phase debits. reserve takes the points off the member's spendable balance with a
+// CAS, so two concurrent bookings can never spend the same points; commit makes the debit final and cancel puts
+// the points back. Balances are sharded per member (one AtomicLong each in a ConcurrentHashMap), so members never
+// contend with each other, and the ledger-wide totals are LongAdders.
+public class RewardPointsLedger {
+
+    private static final int RESERVED = 0;
+    private static final int COMMITTED = 1;
+    private static final int CANCELLED = 2;
+
+    public static class PointsReservation {
+        String memberId;
+        long points;
+        final AtomicInteger state = new AtomicInteger(RESERVED);
+
+        public PointsReservation(String memberId, long points) {
+            this.memberId = memberId;
+            this.points = points;
+        }
+    }
+
+    private final ConcurrentHashMap<String, AtomicLong> balances = new ConcurrentHashMap<>();
+    private final LongAdder totalBalance = new LongAdder();
+    private final LongAdder totalReserved = new LongAdder();
+    private final LongAdder totalDebited = new LongAdder();
+
+    public void credit(String memberId, long points) {
+        if (points <= 0) {
+            throw new IllegalArgumentException("Credited points must be positive: " + points);
+        }
+        balances.computeIfAbsent(memberId, id -> new AtomicLong()).addAndGet(points);
+        totalBalance.add(points);
+    }
+
+    // Spendable points: reserved points are excluded until their reservation is cancelled
+    public long balance(String memberId) {
+        AtomicLong balance = balances.get(memberId);
+        return balance == null ? 0 : balance.get();
+    }
+
+    // Returns null, reserving nothing, if the member cannot spend that many points
+    public PointsReservation reserve(String memberId, long points) {
+        if (points <= 0) {
+            throw new IllegalArgumentException("Reserved points must be positive: " + points);
+        }
+        AtomicLong balance = balances.get(memberId);
+        if (balance == null) {
+            return null;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current < points) {
+                return null;
+            }
+        } while (!balance.compareAndSet(current, current - points));
+        totalReserved.add(points);
+        return new PointsReservation(memberId, points);
+    }
+
+    // Returns false if the reservation was already committed or cancelled
+    public boolean commit(PointsReservation reservation) {
+        if (!reservation.state.compareAndSet(RESERVED, COMMITTED)) {
+            return false;
+        }
+        totalReserved.add(-reservation.points);
+        totalBalance.add(-reservation.points);
+        totalDebited.add(reservation.points);
+        return true;
+    }
+
+    // Returns false if the reservation was already committed or cancelled
+    public boolean cancel(PointsReservation reservation) {
+        if (!reservation.state.compareAndSet(RESERVED, CANCELLED)) {
+            return false;
+        }
+        balances.get(reservation.memberId).addAndGet(reservation.points);
+        totalReserved.add(-reservation.points);
+        return true;
+    }
+
+    // Points credited and not debited yet, reserved ones included
+    public long totalBalance() {
+        return totalBalance.sum();
+    }
+
+    public long totalReserved() {
+        return totalReserved.sum();
+    }
+
+    public long totalDebited() {
+        return totalDebited.sum();
+    }
+}
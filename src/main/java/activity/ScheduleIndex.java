@@ -0,0 +1,72 @@
+package activity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import activity.SmartEnergyManagementSystem.DeviceSchedule;
+
+// Device schedules bucketed by scheduled time in a sorted map, so a tick only touches the schedules due at
+// that exact time. Schedules are added and removed one at a time; past buckets can be pruned as the clock advances.
+public class ScheduleIndex {
+
+    private final TreeMap<LocalDateTime, List<DeviceSchedule>> buckets = new TreeMap<>();
+    private int size;
+
+    public ScheduleIndex() {
+    }
+
+    public ScheduleIndex(List<DeviceSchedule> scheduledDevices) {
+        for (DeviceSchedule schedule : scheduledDevices) {
+            add(schedule);
+        }
+    }
+
+    public void add(DeviceSchedule schedule) {
+        buckets.computeIfAbsent(schedule.scheduledTime, time -> new ArrayList<>(1)).add(schedule);
+        size++;
+    }
+
+    // Removes this exact schedule instance; returns false if it was not indexed
+    public boolean remove(DeviceSchedule schedule) {
+        List<DeviceSchedule> bucket = buckets.get(schedule.scheduledTime);
+        if (bucket == null) {
+            return false;
+        }
+        for (int i = 0; i < bucket.size(); i++) {
+            if (bucket.get(i) == schedule) {
+                bucket.remove(i);
+                if (bucket.isEmpty()) {
+                    buckets.remove(schedule.scheduledTime);
+                }
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<DeviceSchedule> dueAt(LocalDateTime currentTime) {
+        List<DeviceSchedule> bucket = buckets.get(currentTime);
+        return bucket == null ? Collections.emptyList() : Collections.unmodifiableList(bucket);
+    }
+
+    // Drops every schedule before the given time and returns how many were removed
+    public int removeBefore(LocalDateTime time) {
+        Map<LocalDateTime, List<DeviceSchedule>> past = buckets.headMap(time, false);
+        int removed = 0;
+        for (List<DeviceSchedule> bucket : past.values()) {
+            removed += bucket.size();
+        }
+        past.clear();
+        size -= removed;
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,172 @@
+package activity;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Seat map of one flight as one bitmap per row (bit set = seat taken), so a wide-body row of up to 64 seats is
+// searched for a free block with a handful of shifts. Seats are held with a CAS per row, so concurrent bookings
+// never get the same seat.
+public class SeatMap {
+
+    public static class SeatHold {
+        final int[] rows;
+        final long[] seats;
+        // Set by the first release, so releasing twice cannot free seats that were held again in between
+        final AtomicBoolean released = new AtomicBoolean();
+
+        public SeatHold(int[] rows, long[] seats) {
+            this.rows = rows;
+            this.seats = seats;
+        }
+
+        public int seatCount() {
+            int count = 0;
+            for (long row : seats) {
+                count += Long.bitCount(row);
+            }
+            return count;
+        }
+
+        // True if every seat is in one row and no other seat separates them
+        public boolean isContiguous() {
+            if (seats.length != 1) {
+                return false;
+            }
+            long block = seats[0] >>> Long.numberOfTrailingZeros(seats[0]);
+            return (block & (block + 1)) == 0;
+        }
+    }
+
+    private final int rowCount;
+    private final int seatsPerRow;
+    // Positions past the end of a row, permanently taken
+    private final long outsideRow;
+    private final AtomicLongArray rows;
+
+    public SeatMap(int rowCount, int seatsPerRow) {
+        if (rowCount <= 0 || seatsPerRow <= 0 || seatsPerRow > Long.SIZE) {
+            throw new IllegalArgumentException("A seat map needs rows of 1 to " + Long.SIZE + " seats: "
+                    + rowCount + " x " + seatsPerRow);
+        }
+        this.rowCount = rowCount;
+        this.seatsPerRow = seatsPerRow;
+        this.outsideRow = seatsPerRow == Long.SIZE ? 0 : -1L << seatsPerRow;
+        this.rows = new AtomicLongArray(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            rows.set(row, outsideRow);
+        }
+    }
+
+    // Holds a block of adjacent seats in the first row that has one, or returns null if no row does
+    public SeatHold holdTogether(int seats) {
+        if (seats <= 0 || seats > seatsPerRow) {
+            return null;
+        }
+        long width = seats == Long.SIZE ? -1L : (1L << seats) - 1;
+        for (int row = 0; row < rowCount; row++) {
+            long taken = rows.get(row);
+            long starts = blockStarts(~taken, seats);
+            while (starts != 0) {
+                long block = width << Long.numberOfTrailingZeros(starts);
+                if (rows.compareAndSet(row, taken, taken | block)) {
+                    return new SeatHold(new int[]{row}, new long[]{block});
+                }
+                // Lost a race on this row: look again at its current state
+                taken = rows.get(row);
+                starts = blockStarts(~taken, seats);
+            }
+        }
+        return null;
+    }
+
+    // Holds the first free seats in row order, wherever they are, or nothing (returning null) if there are too few
+    public SeatHold hold(int seats) {
+        if (seats <= 0) {
+            return null;
+        }
+        int[] heldRows = new int[Math.min(seats, rowCount)];
+        long[] heldSeats = new long[heldRows.length];
+        int heldRowCount = 0;
+        int remaining = seats;
+        for (int row = 0; row < rowCount && remaining > 0; row++) {
+            long taken;
+            long block;
+            do {
+                taken = rows.get(row);
+                block = lowestBits(~taken, remaining);
+            } while (block != 0 && !rows.compareAndSet(row, taken, taken | block));
+            if (block != 0) {
+                heldRows[heldRowCount] = row;
+                heldSeats[heldRowCount] = block;
+                heldRowCount++;
+                remaining -= Long.bitCount(block);
+            }
+        }
+        SeatHold hold = new SeatHold(Arrays.copyOf(heldRows, heldRowCount), Arrays.copyOf(heldSeats, heldRowCount));
+        if (remaining > 0) {
+            release(hold);
+            return null;
+        }
+        return hold;
+    }
+
+    // Returns false, releasing nothing, if the hold was already released
+    public boolean release(SeatHold hold) {
+        if (!hold.released.compareAndSet(false, true)) {
+            return false;
+        }
+        for (int i = 0; i < hold.rows.length; i++) {
+            long seats = hold.seats[i] & ~outsideRow;
+            int row = hold.rows[i];
+            long taken;
+            do {
+                taken = rows.get(row);
+            } while (!rows.compareAndSet(row, taken, taken & ~seats));
+        }
+        return true;
+    }
+
+    public boolean isTaken(int row, int seat) {
+        return (rows.get(row) >>> seat & 1) != 0;
+    }
+
+    public int freeSeats() {
+        int free = 0;
+        for (int row = 0; row < rowCount; row++) {
+            free += Long.bitCount(~rows.get(row));
+        }
+        return free;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public int seatsPerRow() {
+        return seatsPerRow;
+    }
+
+    // Bit i is set if positions i to i + seats - 1 are all free. Each step doubles the run length checked,
+    // so this takes O(log seats) shifts instead of one per seat.
+    static long blockStarts(long free, int seats) {
+        long starts = free;
+        int length = 1;
+        while (length < seats) {
+            int shift = Math.min(length, seats - length);
+            starts &= starts >>> shift;
+            length += shift;
+        }
+        return starts;
+    }
+
+    private static long lowestBits(long bits, int count) {
+        long lowest = 0;
+        for (int i = 0; i < count && bits != 0; i++) {
+            long bit = Long.lowestOneBit(bits);
+            lowest |= bit;
+            bits &= ~bit;
+        }
+        return lowest;
+    }
+}
@@ -1,9 +1,12 @@
 package activity;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 public class SmartEnergyManagementSystem {
 
@@ -31,10 +34,62 @@ public class SmartEnergyManagementSystem {
         }
     }
 
+    private final DecisionMetrics metrics;
+
+    public SmartEnergyManagementSystem() {
+        this(DecisionMetrics.DISABLED);
+    }
+
+    // Records manageEnergy calls, latencies, the rules that applied and the number of shed devices into metrics
+    public SmartEnergyManagementSystem(DecisionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public EnergyManagementResult manageEnergy(double currentPrice, double priceThreshold, Map<String, Integer> devicePriorities,
                                                LocalDateTime currentTime, double currentTemperature, double[] desiredTemperatureRange,
                                                double energyUsageLimit, double totalEnergyUsedToday, List<DeviceSchedule> scheduledDevices) {
+        long start = metrics.startTimer();
+        try {
+            EnergyManagementResult result = manageDevices(currentPrice, priceThreshold, devicePriorities, currentTime,
+                    currentTemperature, desiredTemperatureRange, energyUsageLimit, totalEnergyUsedToday);
+
+            // Handle scheduled devices
+            for (DeviceSchedule schedule : scheduledDevices) {
+                if (schedule.scheduledTime.equals(currentTime)) {
+                    result.deviceStatus.put(schedule.deviceName, true);
+                }
+            }
+
+            return result;
+        } finally {
+            metrics.recordCall("energy.manageEnergy", start);
+        }
+    }
+
+    // Same as above, but only the schedules due at currentTime are looked at
+    public EnergyManagementResult manageEnergy(double currentPrice, double priceThreshold, Map<String, Integer> devicePriorities,
+                                               LocalDateTime currentTime, double currentTemperature, double[] desiredTemperatureRange,
+                                               double energyUsageLimit, double totalEnergyUsedToday, ScheduleIndex scheduleIndex) {
+        long start = metrics.startTimer();
+        try {
+            EnergyManagementResult result = manageDevices(currentPrice, priceThreshold, devicePriorities, currentTime,
+                    currentTemperature, desiredTemperatureRange, energyUsageLimit, totalEnergyUsedToday);
+
+            // Handle scheduled devices
+            for (DeviceSchedule schedule : scheduleIndex.dueAt(currentTime)) {
+                result.deviceStatus.put(schedule.deviceName, true);
+            }
+
+            return result;
+        } finally {
+            metrics.recordCall("energy.manageEnergy", start);
+        }
+    }
 
+    // Every rule except the device schedules
+    private EnergyManagementResult manageDevices(double currentPrice, double priceThreshold, Map<String, Integer> devicePriorities,
+                                                 LocalDateTime currentTime, double currentTemperature, double[] desiredTemperatureRange,
+                                                 double energyUsageLimit, double totalEnergyUsedToday) {
         Map<String, Boolean> deviceStatus = new HashMap<>();
         boolean energySavingMode = false;
         boolean temperatureRegulationActive = false;
@@ -42,6 +97,7 @@ public class SmartEnergyManagementSystem {
         // Activate energy-saving mode if price exceeds threshold
         if (currentPrice > priceThreshold) {
             energySavingMode = true;
+            metrics.increment("energy.energySavingMode");
 
             // Turn off low-priority devices
             for (Map.Entry<String, Integer> entry : devicePriorities.entrySet()) {
@@ -60,6 +116,7 @@ public class SmartEnergyManagementSystem {
 
         // Night mode between 11 PM and 6 AM
         if (currentTime.getHour() >= 23 || currentTime.getHour() < 6) {
+            metrics.increment("energy.nightMode");
             for (String device : devicePriorities.keySet()) {
                 if (!device.equals("Security") && !device.equals("Refrigerator")) {
                     deviceStatus.put(device, false);
@@ -71,31 +128,43 @@ public class SmartEnergyManagementSystem {
         if (currentTemperature < desiredTemperatureRange[0]) {
             deviceStatus.put("Heating", true);
             temperatureRegulationActive = true;
+            metrics.increment("energy.temperatureRegulation");
         } else if (currentTemperature > desiredTemperatureRange[1]) {
             deviceStatus.put("Cooling", true);
             temperatureRegulationActive = true;
+            metrics.increment("energy.temperatureRegulation");
         } else {
             deviceStatus.put("Heating", false);
             deviceStatus.put("Cooling", false);
         }
 
         // Shut down devices as energy limit is approached
-        while (totalEnergyUsedToday >= energyUsageLimit && deviceStatus.containsValue(true)) {
-            for (Map.Entry<String, Integer> entry : devicePriorities.entrySet()) {
-                if (deviceStatus.get(entry.getKey()) && entry.getValue() > 1) {
-                    deviceStatus.put(entry.getKey(), false);
-                    totalEnergyUsedToday -= 1;  // Simulate energy reduction
-                }
-            }
+        if (totalEnergyUsedToday >= energyUsageLimit) {
+            totalEnergyUsedToday = shedLowPriorityDevices(deviceStatus, devicePriorities, totalEnergyUsedToday);
         }
 
-        // Handle scheduled devices
-        for (DeviceSchedule schedule : scheduledDevices) {
-            if (schedule.scheduledTime.equals(currentTime)) {
-                deviceStatus.put(schedule.deviceName, true);
+        return new EnergyManagementResult(deviceStatus, energySavingMode, temperatureRegulationActive, totalEnergyUsedToday);
+    }
+
+    // Turns off every running low-priority device, lowest priority first. One pass over the priority buckets
+    // sheds everything that can be shed, so a second pass could never lower the usage further: devices left on
+    // have priority 1 or no priority at all (Heating/Cooling, scheduled devices) and stay on.
+    private double shedLowPriorityDevices(Map<String, Boolean> deviceStatus, Map<String, Integer> devicePriorities,
+                                          double totalEnergyUsedToday) {
+        TreeMap<Integer, List<String>> buckets = new TreeMap<>(Comparator.reverseOrder());
+        for (Map.Entry<String, Integer> entry : devicePriorities.entrySet()) {
+            if (entry.getValue() > 1 && deviceStatus.get(entry.getKey())) {
+                buckets.computeIfAbsent(entry.getValue(), priority -> new ArrayList<>()).add(entry.getKey());
             }
         }
-
-        return new EnergyManagementResult(deviceStatus, energySavingMode, temperatureRegulationActive, totalEnergyUsedToday);
+        for (List<String> devices : buckets.values()) {
+            for (String device : devices) {
+                deviceStatus.put(device, false);
+                totalEnergyUsedToday -= 1;  // Simulate energy reduction
+            }
+            metrics.add("energy.shedDevices", devices.size());
+        }
+        metrics.increment("energy.shedding");
+        return totalEnergyUsedToday;
     }
 }
@@ -0,0 +1,445 @@
+package activity;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+import activity.FraudDetectionSystem.FraudCheckResult;
+
+// Append-only, memory-mapped transaction history. Records have a fixed layout (amount, epoch millis, location id,
+// account id, the index of the account's previous record and a CRC32C), so the fraud rules read recent history
+// straight from the mapped file and walk an account's records backwards without deserializing anything. Only the
+// last record per account is kept on heap.
+//
+// Location ids come from the log's own dictionary (locations()), whose names are persisted in a side file before
+// any record refers to them, so ids mean the same location after a restart. Account ids are the caller's own
+// stable numbering. flush() forces the records and names and then checkpoints the per-account tails, so reopening
+// only scans the records appended after the last flush.
+// Records of one account must be appended in timestamp order.
+public class TransactionLog implements AutoCloseable {
+
+    private static final int MAGIC = 0x54584C47;
+    private static final int CHECKPOINT_MAGIC = 0x54584350;
+    private static final int HEADER_SIZE = 64;
+    private static final int COUNT_OFFSET = 8;
+    private static final int RECORD_SIZE = 40;
+    private static final int AMOUNT_OFFSET = 0;
+    private static final int TIME_OFFSET = 8;
+    private static final int LOCATION_OFFSET = 16;
+    private static final int ACCOUNT_OFFSET = 20;
+    private static final int PREVIOUS_OFFSET = 24;
+    private static final int CHECKSUM_OFFSET = 32;
+    private static final int MAX_LOCATION_SIZE = 1 << 16;
+    private static final long MILLIS_PER_MINUTE = 60_000;
+
+    // Index of the last record per account id; open addressing over parallel primitive arrays, no boxing
+    static class AccountTails {
+        private int[] accounts = new int[64];
+        private long[] indexes = new long[64];
+        private int size;
+
+        AccountTails() {
+            Arrays.fill(indexes, -1);
+        }
+
+        // Returns -1 for accounts without records
+        long get(int accountId) {
+            int mask = accounts.length - 1;
+            for (int slot = hash(accountId) & mask; ; slot = (slot + 1) & mask) {
+                if (indexes[slot] < 0 || accounts[slot] == accountId) {
+                    return indexes[slot];
+                }
+            }
+        }
+
+        void put(int accountId, long index) {
+            if (2 * (size + 1) > accounts.length) {
+                resize();
+            }
+            int mask = accounts.length - 1;
+            int slot = hash(accountId) & mask;
+            while (indexes[slot] >= 0 && accounts[slot] != accountId) {
+                slot = (slot + 1) & mask;
+            }
+            if (indexes[slot] < 0) {
+                size++;
+            }
+            accounts[slot] = accountId;
+            indexes[slot] = index;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void resize() {
+            int[] oldAccounts = accounts;
+            long[] oldIndexes = indexes;
+            accounts = new int[2 * oldAccounts.length];
+            indexes = new long[2 * oldIndexes.length];
+            Arrays.fill(indexes, -1);
+            size = 0;
+            for (int slot = 0; slot < oldAccounts.length; slot++) {
+                if (oldIndexes[slot] >= 0) {
+                    put(oldAccounts[slot], oldIndexes[slot]);
+                }
+            }
+        }
+
+        private static int hash(int accountId) {
+            int hash = accountId * 0x9E3779B9;
+            return hash ^ hash >>> 16;
+        }
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final FileChannel locationChannel;
+    private final MappedByteBuffer header;
+    private final int recordsPerSegment;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final LocationDictionary locations = new LocationDictionary();
+    private final AccountTails lastRecords = new AccountTails();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Only one flush writes the checkpoint at a time
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Used under the write lock, or under the read and flush locks, which exclude appends
+    private final CRC32C checksum = new CRC32C();
+    private int persistedLocations;
+    private long count;
+
+    public static TransactionLog open(Path path) throws IOException {
+        return new TransactionLog(path, 1 << 20);
+    }
+
+    TransactionLog(Path path, int recordsPerSegment) throws IOException {
+        this.path = path;
+        this.recordsPerSegment = recordsPerSegment;
+        Path directory = path.toAbsolutePath().getParent();
+        boolean created = !Files.exists(path);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.locationChannel = FileChannel.open(sibling(".locations"), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            boolean empty = channel.size() == 0;
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (empty) {
+                header.putInt(0, MAGIC);
+                header.putLong(COUNT_OFFSET, 0);
+            } else if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a transaction log: " + path);
+            }
+            if (created) {
+                header.force();
+                // The new files only survive a power loss once their directory entries do
+                forceDirectory(directory);
+            }
+            loadLocations();
+            count = loadCheckpoint();
+            if (count > header.getLong(COUNT_OFFSET)) {
+                throw new IOException("Checkpoint is ahead of the transaction log: " + path);
+            }
+            recoverRecords();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            locationChannel.close();
+            throw e;
+        }
+    }
+
+    // Intern locations here (or through idsOf for blacklists); records may only refer to ids of this dictionary
+    public LocationDictionary locations() {
+        return locations;
+    }
+
+    public long append(int accountId, double amount, long epochMillis, int locationId) throws IOException {
+        if (locationId < 0 || locationId >= locations.size()) {
+            throw new IllegalArgumentException("Location id is not in the log's dictionary: " + locationId);
+        }
+        lock.writeLock().lock();
+        try {
+            persistLocations(locationId);
+            long index = count;
+            MappedByteBuffer segment = segment(index);
+            int offset = offset(index);
+            segment.putDouble(offset + AMOUNT_OFFSET, amount);
+            segment.putLong(offset + TIME_OFFSET, epochMillis);
+            segment.putInt(offset + LOCATION_OFFSET, locationId);
+            segment.putInt(offset + ACCOUNT_OFFSET, accountId);
+            segment.putLong(offset + PREVIOUS_OFFSET, lastRecords.get(accountId));
+            segment.putInt(offset + CHECKSUM_OFFSET, checksum(segment, offset));
+            // The count is published after the record, so a process crash never exposes a half-written record.
+            // Dirty mapped pages reach the disk in any order, though: after a power loss the count may cover
+            // records that were lost, which reopening detects by their checksum.
+            count = index + 1;
+            header.putLong(COUNT_OFFSET, count);
+            lastRecords.put(accountId, index);
+            return index;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long append(int accountId, double amount, long epochMillis, String location) throws IOException {
+        return append(accountId, amount, epochMillis, locations.intern(location));
+    }
+
+    // Same decision as FraudDetectionSystem.checkForFraud with the account's logged records as previousTransactions
+    public FraudCheckResult checkForFraud(int accountId, double amount, long epochMillis, int locationId,
+                                          BitSet blacklistedLocationIds) throws IOException {
+        lock.readLock().lock();
+        try {
+            long last = lastRecords.get(accountId);
+            int recentTransactionCount = 0;
+            boolean rapidLocationChange = false;
+            if (last >= 0) {
+                MappedByteBuffer segment = segment(last);
+                int offset = offset(last);
+                rapidLocationChange = (epochMillis - segment.getLong(offset + TIME_OFFSET)) / MILLIS_PER_MINUTE
+                        < FraudDetectionSystem.LOCATION_CHANGE_WINDOW_MINUTES
+                        && segment.getInt(offset + LOCATION_OFFSET) != locationId;
+
+                // Walk the account's records newest first until one falls out of the velocity window
+                for (long index = last; index >= 0; ) {
+                    segment = segment(index);
+                    offset = offset(index);
+                    if ((epochMillis - segment.getLong(offset + TIME_OFFSET)) / MILLIS_PER_MINUTE
+                            > FraudDetectionSystem.VELOCITY_WINDOW_MINUTES) {
+                        break;
+                    }
+                    recentTransactionCount++;
+                    index = segment.getLong(offset + PREVIOUS_OFFSET);
+                }
+            }
+
+            int verdict = FraudDetectionSystem.verdict(amount, recentTransactionCount, rapidLocationChange,
+                    locationId >= 0 && blacklistedLocationIds.get(locationId));
+            return FraudDetectionSystem.toResult(verdict);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Locations that were never logged cannot match a previous record, so they are not interned
+    public FraudCheckResult checkForFraud(int accountId, double amount, long epochMillis, String location,
+                                          BitSet blacklistedLocationIds) throws IOException {
+        return checkForFraud(accountId, amount, epochMillis, locations.idOf(location), blacklistedLocationIds);
+    }
+
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Forces appended records and location names to disk, then checkpoints the per-account tails
+    public void flush() throws IOException {
+        flushLock.lock();
+        lock.readLock().lock();
+        try {
+            locationChannel.force(false);
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            header.force();
+            writeCheckpoint();
+        } finally {
+            lock.readLock().unlock();
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+            locationChannel.close();
+        }
+    }
+
+    // Writes the names of every location id up to locationId that no record referred to yet
+    private void persistLocations(int locationId) throws IOException {
+        if (locationId < persistedLocations) {
+            return;
+        }
+        List<byte[]> names = new ArrayList<>();
+        int size = 0;
+        for (int id = persistedLocations; id <= locationId; id++) {
+            byte[] name = locations.location(id).getBytes(StandardCharsets.UTF_8);
+            if (name.length > MAX_LOCATION_SIZE) {
+                throw new IllegalArgumentException("Location name too long: " + name.length + " bytes");
+            }
+            names.add(name);
+            size += name.length + 8;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] name : names) {
+            buffer.putInt(name.length).put(name);
+            checksum.reset();
+            checksum.update(name);
+            buffer.putInt((int) checksum.getValue());
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            locationChannel.write(buffer, locationChannel.size());
+        }
+        persistedLocations = locationId + 1;
+    }
+
+    // Re-interns the persisted names in file order, which gives every name its original id. A torn or corrupt
+    // entry at the end was never referred to by a checkpointed record and is cut off.
+    private void loadLocations() throws IOException {
+        ByteBuffer file = ByteBuffer.allocate((int) locationChannel.size());
+        while (file.hasRemaining()) {
+            if (locationChannel.read(file, file.position()) < 0) {
+                break;
+            }
+        }
+        file.flip();
+        int valid = 0;
+        while (file.remaining() >= 8) {
+            int length = file.getInt();
+            if (length < 0 || length > MAX_LOCATION_SIZE || file.remaining() < length + 4) {
+                break;
+            }
+            byte[] name = new byte[length];
+            file.get(name);
+            checksum.reset();
+            checksum.update(name);
+            if (file.getInt() != (int) checksum.getValue()) {
+                break;
+            }
+            locations.intern(new String(name, StandardCharsets.UTF_8));
+            valid = file.position();
+        }
+        locationChannel.truncate(valid);
+        persistedLocations = locations.size();
+    }
+
+    // Returns the number of records the checkpoint covers, with their account tails loaded
+    private long loadCheckpoint() throws IOException {
+        Path checkpoint = sibling(".tails");
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+        if (file.remaining() < 20 || file.getInt(0) != CHECKPOINT_MAGIC) {
+            throw new IOException("Corrupt transaction log checkpoint: " + checkpoint);
+        }
+        checksum.reset();
+        checksum.update(file.array(), 0, file.limit() - 4);
+        if (file.getInt(file.limit() - 4) != (int) checksum.getValue()) {
+            throw new IOException("Corrupt transaction log checkpoint: " + checkpoint);
+        }
+        file.getInt();
+        long checkpointCount = file.getLong();
+        int accounts = file.getInt();
+        if (file.remaining() != accounts * 12L + 4) {
+            throw new EOFException("Truncated transaction log checkpoint: " + checkpoint);
+        }
+        for (int i = 0; i < accounts; i++) {
+            lastRecords.put(file.getInt(), file.getLong());
+        }
+        return checkpointCount;
+    }
+
+    // Replays the records appended after the checkpoint into the account tails, up to the first one that was
+    // not fully written or refers to a location name that was lost, and cuts the count back to it
+    private void recoverRecords() throws IOException {
+        long headerCount = header.getLong(COUNT_OFFSET);
+        while (count < headerCount) {
+            MappedByteBuffer segment = segment(count);
+            int offset = offset(count);
+            int locationId = segment.getInt(offset + LOCATION_OFFSET);
+            if (segment.getInt(offset + CHECKSUM_OFFSET) != checksum(segment, offset)
+                    || locationId < 0 || locationId >= persistedLocations) {
+                break;
+            }
+            lastRecords.put(segment.getInt(offset + ACCOUNT_OFFSET), count);
+            count++;
+        }
+        if (count != headerCount) {
+            header.putLong(COUNT_OFFSET, count);
+        }
+    }
+
+    // Written to a temporary file and renamed over the old checkpoint, so a crash leaves one or the other
+    private void writeCheckpoint() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(20 + 12 * lastRecords.size());
+        buffer.putInt(CHECKPOINT_MAGIC).putLong(count).putInt(lastRecords.size());
+        for (int slot = 0; slot < lastRecords.accounts.length; slot++) {
+            if (lastRecords.indexes[slot] >= 0) {
+                buffer.putInt(lastRecords.accounts[slot]).putLong(lastRecords.indexes[slot]);
+            }
+        }
+        checksum.reset();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) checksum.getValue());
+        buffer.flip();
+
+        Path checkpoint = sibling(".tails");
+        Path temporary = sibling(".tails.tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(temporary, checkpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        forceDirectory(path.toAbsolutePath().getParent());
+    }
+
+    private int checksum(MappedByteBuffer segment, int offset) {
+        checksum.reset();
+        checksum.update(segment.slice(offset, CHECKSUM_OFFSET));
+        return (int) checksum.getValue();
+    }
+
+    private Path sibling(String suffix) {
+        return path.resolveSibling(path.getFileName() + suffix);
+    }
+
+    private static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private MappedByteBuffer segment(long index) throws IOException {
+        int segmentIndex = (int) (index / recordsPerSegment);
+        if (segmentIndex < segments.size()) {
+            return segments.get(segmentIndex);
+        }
+        synchronized (segments) {
+            while (segmentIndex >= segments.size()) {
+                long position = HEADER_SIZE + (long) segments.size() * recordsPerSegment * RECORD_SIZE;
+                segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position, (long) recordsPerSegment * RECORD_SIZE));
+            }
+            return segments.get(segmentIndex);
+        }
+    }
+
+    private int offset(long index) {
+        return (int) (index % recordsPerSegment) * RECORD_SIZE;
+    }
+}
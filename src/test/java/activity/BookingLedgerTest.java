@@ -0,0 +1,164 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BookingLedgerTest {
+
+    @TempDir
+    Path directory;
+
+    private final LocalDateTime bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    void test_open_WHEN_ledger_is_reopened() throws IOException {
+        try (var bookingLedger = BookingLedger.open(directory)) {
+            bookingLedger.addFlight("AZ100", 10);
+            final var bookingResult = bookingLedger.bookFlight("AZ100", 4, bookingTime, 100, 100, false,
+                    bookingTime.plusHours(50), 0);
+            final var rejectedResult = bookingLedger.bookFlight("AZ100", 7, bookingTime, 100, 100, false,
+                    bookingTime.plusHours(50), 0);
+            final var cancellationResult = bookingLedger.bookFlight("AZ100", 1, bookingTime, 100, 100, true,
+                    bookingTime.plusHours(50), 0);
+
+            assertTrue(bookingResult.confirmation);
+            assertEquals(320, bookingResult.totalPrice, 0.01);
+            assertFalse(rejectedResult.confirmation);
+            assertEquals(80, cancellationResult.refundAmount, 0.01);
+        }
+
+        try (var bookingLedger = BookingLedger.open(directory)) {
+            assertEquals(10, bookingLedger.inventory().capacity("AZ100"));
+            assertEquals(7, bookingLedger.inventory().availableSeats("AZ100"));
+            assertEquals(320, bookingLedger.revenue("AZ100"), 0.01);
+            assertEquals(80, bookingLedger.refunds("AZ100"), 0.01);
+        }
+    }
+
+    @Test
+    void test_snapshot_WHEN_bookings_follow_it() throws IOException {
+        try (var bookingLedger = BookingLedger.open(directory)) {
+            bookingLedger.addFlight("AZ100", 10);
+            bookingLedger.bookFlight("AZ100", 2, bookingTime, 100, 100, false, bookingTime.plusHours(50), 0);
+            bookingLedger.snapshot();
+            assertEquals(0, Files.size(directory.resolve("bookings.wal")));
+            bookingLedger.addFlight("AZ200", 5);
+            bookingLedger.bookFlight("AZ100", 3, bookingTime, 100, 100, false, bookingTime.plusHours(50), 0);
+            bookingLedger.bookFlight("AZ200", 5, bookingTime, 100, 100, false, bookingTime.plusHours(50), 0);
+        }
+
+        try (var bookingLedger = BookingLedger.open(directory)) {
+            assertEquals(5, bookingLedger.inventory().availableSeats("AZ100"));
+            assertEquals(0, bookingLedger.inventory().availableSeats("AZ200"));
+            assertEquals(400, bookingLedger.revenue("AZ100"), 0.01);
+        }
+    }
+
+    @Test
+    void test_open_WHEN_log_has_a_torn_record() throws IOException {
+        try (var bookingLedger = BookingLedger.open(directory)) {
+            bookingLedger.addFlight("AZ100", 10);
+            bookingLedger.bookFlight("AZ100", 2, bookingTime, 100, 100, false, bookingTime.plusHours(50), 0);
+        }
+        final var log = directory.resolve("bookings.wal");
+        final var validSize = Files.size(log);
+        Files.write(log, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (var bookingLedger = BookingLedger.open(directory)) {
+            assertEquals(validSize, Files.size(log));
+            assertEquals(8, bookingLedger.inventory().availableSeats("AZ100"));
+            bookingLedger.bookFlight("AZ100", 1, bookingTime, 100, 100, false, bookingTime.plusHours(50), 0);
+        }
+        try (var bookingLedger = BookingLedger.open(directory)) {
+            assertEquals(7, bookingLedger.inventory().availableSeats("AZ100"));
+        }
+    }
+
+    @Test
+    void test_bookFlight_WHEN_bookings_are_concurrent() throws IOException, InterruptedException, ExecutionException {
+        final var executor = Executors.newFixedThreadPool(16);
+        double revenue = 0;
+        int availableSeats;
+        double refunds;
+        try (var bookingLedger = new BookingLedger(directory, 500)) {
+            bookingLedger.addFlight("AZ100", 1000);
+            bookingLedger.addFlight("AZ200", 1000);
+            final var results = new ArrayList<Future<FlightBookingSystem.BookingResult>>();
+            for (int i = 0; i < 3000; i++) {
+                final var flightId = i % 2 == 0 ? "AZ100" : "AZ200";
+                final var isCancellation = i % 5 == 0;
+                results.add(executor.submit(() -> bookingLedger.bookFlight(flightId, 1, bookingTime, 100, 100,
+                        isCancellation, bookingTime.plusHours(50), 0)));
+            }
+            for (var result : results) {
+                revenue += result.get().totalPrice;
+            }
+            assertEquals(revenue, bookingLedger.revenue("AZ100") + bookingLedger.revenue("AZ200"), 0.01);
+            availableSeats = bookingLedger.inventory().availableSeats("AZ100") + bookingLedger.inventory().availableSeats("AZ200");
+            refunds = bookingLedger.refunds("AZ100") + bookingLedger.refunds("AZ200");
+        } finally {
+            executor.shutdown();
+        }
+
+        try (var bookingLedger = BookingLedger.open(directory)) {
+            assertEquals(availableSeats, bookingLedger.inventory().availableSeats("AZ100")
+                    + bookingLedger.inventory().availableSeats("AZ200"));
+            assertEquals(revenue, bookingLedger.revenue("AZ100") + bookingLedger.revenue("AZ200"), 0.01);
+            assertEquals(refunds, bookingLedger.refunds("AZ100") + bookingLedger.refunds("AZ200"), 0.01);
+        }
+    }
+
+    @Test
+    void test_bookFlight_WHEN_commit_fails() throws IOException, InterruptedException {
+        final var bookingLedger = BookingLedger.open(directory);
+        try {
+            bookingLedger.addFlight("AZ100", 10);
+            bookingLedger.bookFlight("AZ100", 2, bookingTime, 100, 100, false, bookingTime.plusHours(50), 0);
+
+            // An interrupted flusher finds the log channel closed on its next write
+            final var flusher = Thread.getAllStackTraces().keySet().stream()
+                    .filter(thread -> thread.getName().equals("booking-ledger-flusher"))
+                    .findFirst()
+                    .orElseThrow();
+            flusher.interrupt();
+
+            assertThrows(IOException.class, () -> bookingLedger.bookFlight("AZ100", 3, bookingTime, 100, 100, false,
+                    bookingTime.plusHours(50), 0));
+            assertThrows(IOException.class, () -> bookingLedger.bookFlight("AZ100", 1, bookingTime, 100, 100, true,
+                    bookingTime.plusHours(50), 0));
+            assertEquals(8, bookingLedger.inventory().availableSeats("AZ100"));
+            assertEquals(160, bookingLedger.revenue("AZ100"), 0.01);
+            assertEquals(0, bookingLedger.refunds("AZ100"), 0.01);
+        } finally {
+            assertThrows(IOException.class, bookingLedger::close);
+        }
+    }
+
+    @Test
+    void test_bookFlight_WHEN_cancelling_seats_that_were_not_booked() throws IOException {
+        try (var bookingLedger = BookingLedger.open(directory)) {
+            bookingLedger.addFlight("AZ100", 10);
+
+            final var cancellationResult = bookingLedger.bookFlight("AZ100", 1, bookingTime, 100, 100, true,
+                    bookingTime.plusHours(50), 0);
+
+            assertFalse(cancellationResult.confirmation);
+            assertEquals(0, cancellationResult.refundAmount, 0.01);
+            assertEquals(0, bookingLedger.refunds("AZ100"), 0.01);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BookingServiceTest {
+
+    @Test
+    void test_submit_WHEN_requests_exceed_available_seats() throws InterruptedException, ExecutionException {
+        final var flightInventory = new FlightInventory();
+        flightInventory.addFlight("AZ100", 50);
+        final var bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+        final var results = new ArrayList<Future<FlightBookingSystem.BookingResult>>();
+
+        try (var bookingService = new BookingService(flightInventory, 16, Duration.ofMillis(5))) {
+            for (int i = 0; i < 200; i++) {
+                results.add(bookingService.submit(new BookingService.BookingRequest(
+                        "AZ100", 1, bookingTime, 100, 100, bookingTime.plusHours(25), 0)));
+            }
+            int confirmed = 0;
+            for (var result : results) {
+                if (result.get().confirmation) {
+                    confirmed++;
+                    assertEquals(80, result.get().totalPrice, 0.01);
+                }
+            }
+            assertEquals(50, confirmed);
+        }
+        assertEquals(0, flightInventory.availableSeats("AZ100"));
+    }
+
+    @Test
+    void test_book_WHEN_batch_is_not_filled() throws InterruptedException {
+        final var flightInventory = new FlightInventory();
+        flightInventory.addFlight("AZ100", 10);
+        final var bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        try (var bookingService = new BookingService(flightInventory, 64, Duration.ofMillis(1))) {
+            final var bookingResult = bookingService.book(new BookingService.BookingRequest(
+                    "AZ100", 5, bookingTime, 100, 100, bookingTime.plusHours(23), 100));
+            final var rejectedResult = bookingService.book(new BookingService.BookingRequest(
+                    "AZ100", 6, bookingTime, 100, 100, bookingTime.plusHours(23), 0));
+
+            final var expected = new FlightBookingSystem().bookFlight(
+                    5, bookingTime, 10, 100, 100, false, bookingTime.plusHours(23), 100);
+            assertTrue(bookingResult.confirmation);
+            assertEquals(expected.totalPrice, bookingResult.totalPrice);
+            assertTrue(bookingResult.pointsUsed);
+            assertFalse(rejectedResult.confirmation);
+        }
+        assertEquals(5, flightInventory.availableSeats("AZ100"));
+    }
+
+    @Test
+    void test_submit_WHEN_one_request_of_a_batch_is_invalid() throws InterruptedException, ExecutionException {
+        final var flightInventory = new FlightInventory();
+        flightInventory.addFlight("AZ100", 10);
+        final var bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        try (var bookingService = new BookingService(flightInventory, 3, Duration.ofMillis(50))) {
+            final var first = bookingService.submit(new BookingService.BookingRequest(
+                    "AZ100", 2, bookingTime, 100, 100, bookingTime.plusHours(25), 0));
+            final var invalid = bookingService.submit(new BookingService.BookingRequest(
+                    "AZ100", 3, bookingTime, 100, 100, null, 0));
+            final var last = bookingService.submit(new BookingService.BookingRequest(
+                    "AZ100", 4, bookingTime, 100, 100, bookingTime.plusHours(25), 0));
+
+            assertTrue(first.get().confirmation);
+            assertTrue(last.get().confirmation);
+            final var exception = assertThrows(ExecutionException.class, invalid::get);
+            assertEquals(IllegalArgumentException.class, exception.getCause().getClass());
+        }
+        assertEquals(4, flightInventory.availableSeats("AZ100"));
+    }
+}
@@ -0,0 +1,177 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CancellationPipelineTest {
+
+    private final FlightInventory flightInventory = new FlightInventory();
+    private final CancellationPipeline cancellationPipeline = new CancellationPipeline(flightInventory);
+    private final LocalDateTime cancellationTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    void test_cancelFlight_WHEN_compared_with_bookFlight() {
+        flightInventory.addFlight("AZ100", 10_000);
+        final var flightBookingSystem = new FlightBookingSystem();
+        final var random = new Random(5);
+        for (long hours : new long[]{-3, 10, 30, 47, 48, 100}) {
+            final var bookings = new ArrayList<CancellationPipeline.BookingRecord>();
+            for (int i = 0; i < 200; i++) {
+                bookings.add(new CancellationPipeline.BookingRecord("B" + i, 1 + random.nextInt(8),
+                        50 + random.nextDouble() * 500, random.nextInt(300), random.nextBoolean() ? 0 : random.nextInt(3000)));
+            }
+            final var departureTime = cancellationTime.plusHours(hours);
+            final var refunds = new ArrayList<Double>();
+
+            final var summary = cancellationPipeline.cancelFlight("AZ100", cancellationTime, departureTime, bookings,
+                    (bookingId, passengers, refundAmount) -> refunds.add(refundAmount));
+
+            double totalRefund = 0;
+            for (int i = 0; i < bookings.size(); i++) {
+                final var booking = bookings.get(i);
+                final var expected = flightBookingSystem.bookFlight(booking.passengers, cancellationTime,
+                        booking.passengers, booking.currentPrice, booking.previousSales, true, departureTime,
+                        booking.rewardPointsAvailable);
+                assertEquals(expected.refundAmount, (double) refunds.get(i));
+                totalRefund += expected.refundAmount;
+            }
+            assertEquals(200, summary.bookings);
+            assertEquals(totalRefund, summary.totalRefund);
+        }
+    }
+
+    @Test
+    void test_cancelFlight_WHEN_seats_are_released() {
+        flightInventory.addFlight("AZ100", 10);
+        flightInventory.tryReserve("AZ100", 8);
+        final var bookings = List.of(
+                new CancellationPipeline.BookingRecord("B1", 2, 100, 100, 0),
+                new CancellationPipeline.BookingRecord("B2", 5, 100, 100, 0));
+
+        final var summary = cancellationPipeline.cancelFlight("AZ100", cancellationTime, cancellationTime.plusHours(72),
+                bookings);
+
+        assertEquals(7, summary.seatsCancelled);
+        assertEquals(7, summary.seatsReleased);
+        assertEquals(9, flightInventory.availableSeats("AZ100"));
+        assertEquals(160 + 380, summary.totalRefund, 0.01);
+    }
+
+    @Test
+    void test_cancelFlight_WHEN_bookings_are_streamed() {
+        flightInventory.addFlight("AZ100", 100_000);
+        flightInventory.tryReserve("AZ100", 100_000);
+        final Iterable<CancellationPipeline.BookingRecord> bookings = () -> new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < 100_000;
+            }
+
+            @Override
+            public CancellationPipeline.BookingRecord next() {
+                return new CancellationPipeline.BookingRecord("B" + next++, 1, 100, 100, 0);
+            }
+        };
+
+        final var summary = cancellationPipeline.cancelFlight("AZ100", cancellationTime, cancellationTime.plusHours(10),
+                bookings);
+
+        assertEquals(100_000, summary.bookings);
+        assertEquals(100_000, flightInventory.availableSeats("AZ100"));
+        assertEquals(100_000 * 90, summary.totalRefund, 0.01);
+    }
+
+    @Test
+    void test_cancelFlight_WHEN_sink_fails_partway() {
+        flightInventory.addFlight("AZ100", 10);
+        flightInventory.tryReserve("AZ100", 10);
+        final var bookings = List.of(
+                new CancellationPipeline.BookingRecord("B1", 2, 100, 100, 0),
+                new CancellationPipeline.BookingRecord("B2", 3, 100, 100, 0),
+                new CancellationPipeline.BookingRecord("B3", 4, 100, 100, 0));
+        final var emitted = new ArrayList<String>();
+
+        final var exception = assertThrows(CancellationPipeline.PartialCancellationException.class,
+                () -> cancellationPipeline.cancelFlight("AZ100", cancellationTime, cancellationTime.plusHours(72),
+                        bookings, (bookingId, passengers, refundAmount) -> {
+                            if (bookingId.equals("B3")) {
+                                throw new IllegalStateException("sink closed");
+                            }
+                            emitted.add(bookingId);
+                        }));
+
+        assertEquals(List.of("B1", "B2"), emitted);
+        assertEquals(2, exception.summary().bookings);
+        assertEquals(5, exception.summary().seatsReleased);
+        assertEquals(5, flightInventory.availableSeats("AZ100"));
+        assertEquals(IllegalStateException.class, exception.getCause().getClass());
+    }
+
+    @Test
+    void test_cancelFlight_WHEN_bookings_fail_partway() {
+        flightInventory.addFlight("AZ100", 10);
+        flightInventory.tryReserve("AZ100", 10);
+        final Iterable<CancellationPipeline.BookingRecord> bookings = () -> new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public CancellationPipeline.BookingRecord next() {
+                if (next == 3) {
+                    throw new IllegalStateException("storage unavailable");
+                }
+                return new CancellationPipeline.BookingRecord("B" + next++, 1, 100, 100, 0);
+            }
+        };
+
+        final var exception = assertThrows(CancellationPipeline.PartialCancellationException.class,
+                () -> cancellationPipeline.cancelFlight("AZ100", cancellationTime, cancellationTime.plusHours(72),
+                        bookings));
+
+        assertEquals(3, exception.summary().seatsCancelled);
+        assertEquals(3, flightInventory.availableSeats("AZ100"));
+    }
+
+    @Test
+    void test_cancelFlight_WHEN_flight_is_unknown() {
+        final var refunds = new ArrayList<String>();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> cancellationPipeline.cancelFlight("AZ999", cancellationTime, cancellationTime.plusHours(72),
+                        List.of(new CancellationPipeline.BookingRecord("B1", 2, 100, 100, 0)),
+                        (bookingId, passengers, refundAmount) -> refunds.add(bookingId)));
+
+        assertEquals(List.of(), refunds);
+    }
+
+    @Test
+    void test_cancelFlight_WHEN_booking_has_no_passengers() {
+        flightInventory.addFlight("AZ100", 10);
+        flightInventory.tryReserve("AZ100", 10);
+        final var refunds = new ArrayList<String>();
+
+        final var exception = assertThrows(CancellationPipeline.PartialCancellationException.class,
+                () -> cancellationPipeline.cancelFlight("AZ100", cancellationTime, cancellationTime.plusHours(72),
+                        List.of(new CancellationPipeline.BookingRecord("B1", 2, 100, 100, 0),
+                                new CancellationPipeline.BookingRecord("B2", 0, 100, 100, 0)),
+                        (bookingId, passengers, refundAmount) -> refunds.add(bookingId)));
+
+        assertEquals(List.of("B1"), refunds);
+        assertEquals(2, exception.summary().seatsReleased);
+        assertEquals(IllegalArgumentException.class, exception.getCause().getClass());
+        assertEquals(2, flightInventory.availableSeats("AZ100"));
+    }
+}
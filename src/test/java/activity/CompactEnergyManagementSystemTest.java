@@ -0,0 +1,127 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactEnergyManagementSystemTest {
+
+    private final DeviceRegistry deviceRegistry = new DeviceRegistry();
+    private final CompactEnergyManagementSystem compactEnergyManagementSystem = new CompactEnergyManagementSystem();
+
+    @Test
+    void test_manageEnergy_WHEN_in_Night_Mode_and_energy_saving_mode() {
+        // Given
+        var home = new CompactHome(deviceRegistry, Map.of("Security", 1, "Refrigerator", 1, "Lights", 2, "Appliances", 2));
+        var currentTime = LocalDateTime.of(2021, 1, 1, 23, 30);
+        double[] desiredTemperatureRange = {20.0, 25.0};
+
+        // When
+        var result = compactEnergyManagementSystem.manageEnergy(
+                0.15, 0.1, home, currentTime, 22.0, desiredTemperatureRange, 100.0, 50.0, emptyList()
+        );
+
+        // Then
+        final var expectedDeviceStatus = Map.of(
+                "Security", true,
+                "Refrigerator", true,
+                "Lights", false,
+                "Appliances", false,
+                "Heating", false,
+                "Cooling", false
+        );
+        assertEquals(expectedDeviceStatus, result.deviceStatus);
+        assertTrue(result.energySavingMode);
+        assertFalse(result.temperatureRegulationActive);
+        assertEquals(50.0, result.totalEnergyUsed);
+        final var deviceStatus = (CompactEnergyManagementSystem.DeviceStatusView) result.deviceStatus;
+        assertTrue(deviceStatus.isOn(DeviceRegistry.SECURITY));
+        assertFalse(deviceStatus.isOn(deviceRegistry.intern("Lights")));
+    }
+
+    @Test
+    void test_manageEnergy_WHEN_compared_with_map_based_rules() {
+        // Given
+        final var smartEnergyManagementSystem = new SmartEnergyManagementSystem();
+        final var random = new Random(3);
+        final String[] deviceNames = new String[100];
+        for (int i = 0; i < deviceNames.length; i++) {
+            deviceNames[i] = i < 4 ? deviceRegistry.name(i) : "Device_" + i;
+        }
+
+        for (int iteration = 0; iteration < 2000; iteration++) {
+            final var devicePriorities = new HashMap<String, Integer>();
+            for (int i = random.nextInt(30); i > 0; i--) {
+                devicePriorities.put(deviceNames[random.nextInt(deviceNames.length)], 1 + random.nextInt(4));
+            }
+            final var currentTime = LocalDateTime.of(2021, 1, 1, random.nextInt(24), 0);
+            final var scheduledDevices = new ArrayList<SmartEnergyManagementSystem.DeviceSchedule>();
+            for (int i = random.nextInt(3); i > 0; i--) {
+                scheduledDevices.add(new SmartEnergyManagementSystem.DeviceSchedule(
+                        deviceNames[random.nextInt(deviceNames.length)], currentTime.plusHours(random.nextInt(2))));
+            }
+            final double currentPrice = random.nextDouble();
+            final double currentTemperature = 15 + random.nextInt(15);
+            final double totalEnergyUsedToday = 10 + random.nextInt(20);
+            final double[] desiredTemperatureRange = {20.0, 25.0};
+
+            // When
+            final var expected = smartEnergyManagementSystem.manageEnergy(currentPrice, 0.5, devicePriorities,
+                    currentTime, currentTemperature, desiredTemperatureRange, 20.0, totalEnergyUsedToday, scheduledDevices);
+            final var actual = compactEnergyManagementSystem.manageEnergy(currentPrice, 0.5,
+                    new CompactHome(deviceRegistry, devicePriorities), currentTime, currentTemperature,
+                    desiredTemperatureRange, 20.0, totalEnergyUsedToday, scheduledDevices);
+
+            // Then
+            assertEquals(expected.deviceStatus, actual.deviceStatus);
+            assertEquals(expected.energySavingMode, actual.energySavingMode);
+            assertEquals(expected.temperatureRegulationActive, actual.temperatureRegulationActive);
+            assertEquals(expected.totalEnergyUsed, actual.totalEnergyUsed);
+        }
+    }
+
+    @Test
+    void test_deviceStatus_WHEN_looked_up_by_name() {
+        deviceRegistry.intern("Dishwasher");
+        var home = new CompactHome(deviceRegistry, Map.of("Security", 1, "Lights", 2));
+
+        var deviceStatus = compactEnergyManagementSystem.manageEnergy(
+                0.15, 0.1, home, LocalDateTime.of(2021, 1, 1, 12, 0), 18.0, new double[]{20.0, 25.0}, 100.0, 50.0,
+                emptyList()
+        ).deviceStatus;
+
+        assertEquals(3, deviceStatus.size());
+        assertEquals(true, deviceStatus.get("Security"));
+        assertEquals(false, deviceStatus.get("Lights"));
+        assertEquals(true, deviceStatus.get("Heating"));
+        assertTrue(deviceStatus.containsKey("Heating"));
+        assertFalse(deviceStatus.containsKey("Cooling"));
+        // Registered, but not a device of this home
+        assertNull(deviceStatus.get("Dishwasher"));
+        assertFalse(deviceStatus.containsKey("Dishwasher"));
+        assertNull(deviceStatus.get("Sauna"));
+        assertFalse(deviceStatus.containsKey(42));
+
+        deviceStatus.put("Sauna", true);
+        assertEquals(4, deviceStatus.size());
+        assertEquals(true, deviceStatus.get("Sauna"));
+        assertEquals(true, deviceStatus.get("Security"));
+    }
+
+    @Test
+    void test_intern_WHEN_device_is_registered_twice() {
+        final int id = deviceRegistry.intern("Lights");
+
+        assertEquals(id, deviceRegistry.intern("Lights"));
+        assertEquals(DeviceRegistry.HEATING, deviceRegistry.intern("Heating"));
+        assertEquals("Lights", deviceRegistry.name(id));
+    }
+}
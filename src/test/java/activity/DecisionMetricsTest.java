@@ -0,0 +1,181 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import javax.management.JMException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DecisionMetricsTest {
+
+    @TempDir
+    Path directory;
+
+    private final DecisionMetrics metrics = new DecisionMetrics();
+
+    @Test
+    void test_checkForFraud_WHEN_velocity_rule_fires() {
+        final var fraudDetectionSystem = new FraudDetectionSystem(metrics);
+        final var now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        final var previousTransactions = new ArrayList<FraudDetectionSystem.Transaction>();
+        for (int i = 0; i < 11; i++) {
+            previousTransactions.add(new FraudDetectionSystem.Transaction(100, now.minusMinutes(i + 1), "Campinas"));
+        }
+
+        fraudDetectionSystem.checkForFraud(new FraudDetectionSystem.Transaction(100, now, "Campinas"),
+                previousTransactions, List.of());
+        fraudDetectionSystem.checkForFraud(new FraudDetectionSystem.Transaction(20000, now, "Campinas"),
+                List.of(), List.of());
+
+        assertEquals(2, metrics.calls("fraud.checkForFraud"));
+        assertEquals(1, metrics.counter("fraud.rule.velocity"));
+        assertEquals(1, metrics.counter("fraud.rule.amount"));
+        assertEquals(1, metrics.counter("fraud.blocked"));
+        assertEquals(1, metrics.counter("fraud.fraudulent"));
+    }
+
+    @Test
+    void test_bookFlight_WHEN_last_minute_group_booking() {
+        final var flightBookingSystem = new FlightBookingSystem(metrics);
+        final var bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        flightBookingSystem.bookFlight(5, bookingTime, 10, 100, 100, false, bookingTime.plusHours(10), 0);
+        flightBookingSystem.bookFlight(5, bookingTime, 2, 100, 100, false, bookingTime.plusHours(10), 0);
+
+        assertEquals(2, metrics.calls("booking.bookFlight"));
+        assertEquals(1, metrics.counter("booking.lastMinuteFee"));
+        assertEquals(1, metrics.counter("booking.groupDiscount"));
+        assertEquals(1, metrics.counter("booking.rejected"));
+        assertEquals(0, metrics.counter("booking.rewardPoints"));
+    }
+
+    @Test
+    void test_bookFlight_WHEN_last_minute_group_booking_is_cancelled() {
+        final var flightBookingSystem = new FlightBookingSystem(metrics);
+        final var bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        flightBookingSystem.bookFlight(5, bookingTime, 10, 100, 100, true, bookingTime.plusHours(10), 500);
+
+        assertEquals(1, metrics.calls("booking.bookFlight"));
+        assertEquals(1, metrics.counter("booking.cancellation"));
+        assertEquals(0, metrics.counter("booking.lastMinuteFee"));
+        assertEquals(0, metrics.counter("booking.groupDiscount"));
+        assertEquals(0, metrics.counter("booking.rewardPoints"));
+    }
+
+    @Test
+    void test_manageEnergy_WHEN_devices_are_shed() {
+        final var smartEnergyManagementSystem = new SmartEnergyManagementSystem(metrics);
+        final var devicePriorities = new HashMap<String, Integer>();
+        devicePriorities.put("Lights", 2);
+        devicePriorities.put("TV", 3);
+        devicePriorities.put("Security", 1);
+
+        smartEnergyManagementSystem.manageEnergy(0.1, 0.2, devicePriorities, LocalDateTime.of(2024, 1, 1, 12, 0),
+                20, new double[]{18, 24}, 30, 31, List.of());
+
+        assertEquals(1, metrics.calls("energy.manageEnergy"));
+        assertEquals(1, metrics.counter("energy.shedding"));
+        assertEquals(2, metrics.counter("energy.shedDevices"));
+        assertEquals(0, metrics.counter("energy.nightMode"));
+    }
+
+    @Test
+    void test_bookFlight_WHEN_inventory_and_seat_map_reject() {
+        final var flightBookingSystem = new FlightBookingSystem(metrics);
+        final var bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+        final var flightInventory = new FlightInventory();
+        flightInventory.addFlight("AZ100", 2);
+
+        flightBookingSystem.bookFlight(flightInventory, "AZ100", 3, bookingTime, 100, 100, false,
+                bookingTime.plusHours(30), 0);
+        flightBookingSystem.bookFlight(new SeatMap(1, 2), 3, bookingTime, 100, 100, bookingTime.plusHours(30), 0);
+        flightBookingSystem.bookFlight(flightInventory, "AZ100", 2, bookingTime, 100, 100, false,
+                bookingTime.plusHours(30), 0);
+
+        assertEquals(3, metrics.calls("booking.bookFlight"));
+        assertEquals(2, metrics.counter("booking.rejected"));
+    }
+
+    @Test
+    void test_manageEnergy_WHEN_call_throws() {
+        final var smartEnergyManagementSystem = new SmartEnergyManagementSystem(metrics);
+
+        assertThrows(NullPointerException.class, () -> smartEnergyManagementSystem.manageEnergy(0.1, 0.2,
+                new HashMap<>(), LocalDateTime.of(2024, 1, 1, 12, 0), 20, new double[]{18, 24}, 30, 10,
+                (List<SmartEnergyManagementSystem.DeviceSchedule>) null));
+
+        assertEquals(1, metrics.calls("energy.manageEnergy"));
+    }
+
+    @Test
+    void test_percentileNanos_WHEN_latencies_are_recorded() {
+        final var histogram = new DecisionMetrics.LatencyHistogram();
+        for (int nanos = 1; nanos <= 1000; nanos++) {
+            histogram.record(nanos * 1000L);
+        }
+
+        assertEquals(1000, histogram.count());
+        final var p50 = histogram.percentileNanos(50);
+        final var p99 = histogram.percentileNanos(99);
+        assertTrue(p50 <= 500_000 && p50 > 500_000 * 0.875);
+        assertTrue(p99 <= 990_000 && p99 > 990_000 * 0.875);
+    }
+
+    @Test
+    void test_bucketOf_WHEN_value_is_a_bucket_lower_bound() {
+        for (long value : new long[]{0, 15, 16, 17, 1023, 1024, 123_456_789, Long.MAX_VALUE}) {
+            final var bucket = DecisionMetrics.LatencyHistogram.bucketOf(value);
+            assertTrue(DecisionMetrics.LatencyHistogram.lowerBoundOf(bucket) <= value);
+            assertEquals(bucket, DecisionMetrics.LatencyHistogram.bucketOf(DecisionMetrics.LatencyHistogram.lowerBoundOf(bucket)));
+        }
+    }
+
+    @Test
+    void test_writeJson_WHEN_metrics_are_recorded() throws IOException {
+        metrics.recordCall("booking.bookFlight", metrics.startTimer());
+        metrics.increment("booking.rejected");
+        final var path = directory.resolve("metrics.json");
+
+        metrics.writeJson(path);
+
+        final var json = Files.readString(path);
+        assertTrue(json.startsWith("{\"calls\":{\"booking.bookFlight\":{\"count\":1,"));
+        assertTrue(json.endsWith("\"counters\":{\"booking.rejected\":1}}"));
+    }
+
+    @Test
+    void test_registerMBean_WHEN_metrics_are_recorded() throws JMException {
+        metrics.increment("energy.nightMode");
+
+        final var objectName = metrics.registerMBean("test");
+
+        try {
+            final var server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(metrics.toJson(), server.getAttribute(objectName, "SnapshotJson"));
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        }
+    }
+
+    @Test
+    void test_bookFlight_WHEN_metrics_are_disabled() {
+        final var flightBookingSystem = new FlightBookingSystem(DecisionMetrics.DISABLED);
+        final var bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        flightBookingSystem.bookFlight(5, bookingTime, 2, 100, 100, false, bookingTime.plusHours(10), 0);
+
+        assertEquals(0, DecisionMetrics.DISABLED.calls("booking.bookFlight"));
+        assertTrue(DecisionMetrics.DISABLED.counters().isEmpty());
+    }
+}
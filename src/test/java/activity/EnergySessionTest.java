@@ -0,0 +1,103 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EnergySessionTest {
+
+    private final double[] desiredTemperatureRange = {20.0, 25.0};
+
+    @Test
+    void test_tick_WHEN_only_price_crosses_threshold() {
+        // Given
+        var devicePriorities = Map.of("Lights", 1, "Appliances", 2, "Oven", 3);
+        var energySession = new EnergySession(devicePriorities, 0.1, desiredTemperatureRange, 100.0, new ScheduleIndex());
+        var currentTime = LocalDateTime.of(2021, 1, 1, 12, 0);
+        energySession.tick(0.05, currentTime, 22.0, 50.0);
+
+        // When
+        var tick = energySession.tick(0.15, currentTime.plusMinutes(1), 22.0, 50.0);
+
+        // Then
+        assertEquals(Map.of("Appliances", false, "Oven", false), tick.changes);
+        assertTrue(tick.result.energySavingMode);
+        assertEquals(false, tick.result.deviceStatus.get("Oven"));
+    }
+
+    @Test
+    void test_tick_WHEN_nothing_changes() {
+        // Given
+        var energySession = new EnergySession(Map.of("Lights", 1), 0.1, desiredTemperatureRange, 100.0, new ScheduleIndex());
+        var currentTime = LocalDateTime.of(2021, 1, 1, 12, 0);
+        var firstTick = energySession.tick(0.05, currentTime, 22.0, 50.0);
+
+        // When
+        var tick = energySession.tick(0.06, currentTime.plusMinutes(1), 23.0, 51.0);
+
+        // Then
+        assertEquals(Map.of("Lights", true), firstTick.changes);
+        assertTrue(tick.changes.isEmpty());
+        assertEquals(51.0, tick.result.totalEnergyUsed);
+    }
+
+    @Test
+    void test_tick_WHEN_compared_with_manageEnergy() {
+        // Given
+        final var smartEnergyManagementSystem = new SmartEnergyManagementSystem();
+        final var random = new Random(5);
+        for (int session = 0; session < 50; session++) {
+            final var devicePriorities = new HashMap<String, Integer>();
+            final String[] deviceNames = {"Security", "Refrigerator", "Heating", "Cooling", "Lights", "Oven", "Washer"};
+            for (String deviceName : deviceNames) {
+                if (random.nextBoolean()) {
+                    devicePriorities.put(deviceName, 1 + random.nextInt(3));
+                }
+            }
+            var currentTime = LocalDateTime.of(2021, 1, 1, 0, 0);
+            final var scheduleIndex = new ScheduleIndex();
+            for (int i = 0; i < 40; i++) {
+                scheduleIndex.add(new SmartEnergyManagementSystem.DeviceSchedule(
+                        deviceNames[random.nextInt(deviceNames.length)], currentTime.plusMinutes(30L * random.nextInt(100))));
+            }
+            final var energySession = new EnergySession(devicePriorities, 0.5, desiredTemperatureRange, 20.0, scheduleIndex);
+            Map<String, Boolean> previousStatus = Map.of();
+
+            for (int tick = 0; tick < 100; tick++) {
+                currentTime = currentTime.plusMinutes(30);
+                final double currentPrice = random.nextInt(4) == 0 ? random.nextDouble() : 0.4;
+                final double currentTemperature = 18 + random.nextInt(10);
+                final double totalEnergyUsedToday = 15 + random.nextInt(10);
+
+                // When
+                final var actual = energySession.tick(currentPrice, currentTime, currentTemperature, totalEnergyUsedToday);
+                final var expected = smartEnergyManagementSystem.manageEnergy(currentPrice, 0.5, devicePriorities,
+                        currentTime, currentTemperature, desiredTemperatureRange, 20.0, totalEnergyUsedToday, scheduleIndex);
+
+                // Then
+                assertEquals(expected.deviceStatus, actual.result.deviceStatus);
+                assertEquals(expected.energySavingMode, actual.result.energySavingMode);
+                assertEquals(expected.temperatureRegulationActive, actual.result.temperatureRegulationActive);
+                assertEquals(expected.totalEnergyUsed, actual.result.totalEnergyUsed);
+                final var expectedChanges = new HashMap<String, Boolean>();
+                final var devices = new HashSet<>(previousStatus.keySet());
+                devices.addAll(expected.deviceStatus.keySet());
+                for (String device : devices) {
+                    boolean wasOn = previousStatus.getOrDefault(device, false);
+                    boolean isOn = expected.deviceStatus.getOrDefault(device, false);
+                    if (wasOn != isOn) {
+                        expectedChanges.put(device, isOn);
+                    }
+                }
+                assertEquals(expectedChanges, actual.changes);
+                previousStatus = Map.copyOf(expected.deviceStatus);
+            }
+        }
+    }
+}
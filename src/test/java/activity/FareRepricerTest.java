@@ -0,0 +1,58 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FareRepricerTest {
+
+    @Test
+    void test_reprice_WHEN_compared_with_bookFlight() {
+        final var flightBookingSystem = new FlightBookingSystem();
+        final var bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+        final var random = new Random(11);
+        final var rows = 5000;
+        final var currentPrices = new double[rows];
+        final var previousSales = new int[rows];
+        final var passengers = new int[rows];
+        final var hoursToDeparture = new long[rows];
+        final var rewardPoints = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            currentPrices[i] = 50 + random.nextDouble() * 900;
+            previousSales[i] = random.nextInt(400);
+            passengers[i] = 1 + random.nextInt(9);
+            hoursToDeparture[i] = random.nextInt(200) - 10;
+            rewardPoints[i] = random.nextBoolean() ? 0 : random.nextInt(5000) - 100;
+        }
+        final var totalPrices = new double[rows];
+
+        FareRepricer.reprice(currentPrices, previousSales, passengers, hoursToDeparture, rewardPoints, totalPrices);
+
+        for (int i = 0; i < rows; i++) {
+            final var expected = flightBookingSystem.bookFlight(passengers[i], bookingTime, passengers[i],
+                    currentPrices[i], previousSales[i], false, bookingTime.plusHours(hoursToDeparture[i]), rewardPoints[i]);
+            assertEquals(expected.totalPrice, totalPrices[i]);
+        }
+    }
+
+    @Test
+    void test_reprice_WHEN_only_a_slice_is_repriced() {
+        final var totalPrices = new double[]{-1, -1, -1};
+
+        FareRepricer.reprice(new double[]{100, 100, 100}, new int[]{100, 100, 100}, new int[]{1, 5, 1},
+                new long[]{48, 10, 48}, new int[]{0, 0, 0}, totalPrices, 1, 1);
+
+        assertEquals(-1, totalPrices[0]);
+        assertEquals(475, totalPrices[1], 0.01);
+        assertEquals(-1, totalPrices[2]);
+    }
+
+    @Test
+    void test_reprice_WHEN_slice_is_out_of_bounds() {
+        assertThrows(IllegalArgumentException.class, () -> FareRepricer.reprice(new double[2], new int[2],
+                new int[2], new long[2], new int[1], new double[2]));
+    }
+}
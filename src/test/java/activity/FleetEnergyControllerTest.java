@@ -0,0 +1,71 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FleetEnergyControllerTest {
+
+    @Test
+    void test_evaluate_WHEN_fleet_has_mixed_homes() {
+        // Given
+        final var homes = new ArrayList<FleetEnergyController.HomeState>();
+        for (int i = 0; i < 5000; i++) {
+            homes.add(new FleetEnergyController.HomeState(
+                    Map.of("Lights", 1 + i % 3, "Appliances", 2),
+                    i % 2 == 0 ? 18.0 : 22.0,
+                    new double[]{20.0, 25.0},
+                    100.0,
+                    i % 100,
+                    emptyList()
+            ));
+        }
+        final var results = new SmartEnergyManagementSystem.EnergyManagementResult[homes.size()];
+        final var currentTime = LocalDateTime.of(2021, 1, 1, 12, 0);
+
+        // When
+        final FleetEnergyController.FleetSummary summary;
+        final FleetEnergyController.FleetSummary singleThreadSummary;
+        try (var controller = new FleetEnergyController(4)) {
+            summary = controller.evaluate(homes, 0.2, 0.1, currentTime, results);
+        }
+        try (var controller = new FleetEnergyController(1)) {
+            singleThreadSummary = controller.evaluate(homes, 0.2, 0.1, currentTime);
+        }
+
+        // Then
+        double expectedLoad = 0;
+        int expectedRegulating = 0;
+        final var smartEnergyManagementSystem = new SmartEnergyManagementSystem();
+        for (int i = 0; i < homes.size(); i++) {
+            final var home = homes.get(i);
+            final var expected = smartEnergyManagementSystem.manageEnergy(0.2, 0.1, home.devicePriorities, currentTime,
+                    home.currentTemperature, home.desiredTemperatureRange, home.energyUsageLimit,
+                    home.totalEnergyUsedToday, home.scheduledDevices);
+            assertEquals(expected.deviceStatus, results[i].deviceStatus);
+            expectedLoad += expected.totalEnergyUsed;
+            expectedRegulating += expected.temperatureRegulationActive ? 1 : 0;
+        }
+        assertEquals(5000, summary.homes);
+        assertEquals(5000, summary.energySavingHomes);
+        assertEquals(expectedRegulating, summary.temperatureRegulatingHomes);
+        assertEquals(expectedLoad, summary.aggregateLoad, 1e-6);
+        assertEquals(singleThreadSummary.aggregateLoad, summary.aggregateLoad);
+    }
+
+    @Test
+    void test_evaluate_WHEN_fleet_is_empty() {
+        try (var controller = new FleetEnergyController(2)) {
+            final var summary = controller.evaluate(List.of(), 0.2, 0.1, LocalDateTime.of(2021, 1, 1, 12, 0));
+
+            assertEquals(0, summary.homes);
+            assertEquals(0.0, summary.aggregateLoad);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package activity;
 
 import org.junit.jupiter.api.Test;
+import java.lang.management.ManagementFactory;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class FlightBookingSystemTest {
@@ -131,5 +135,212 @@ public class FlightBookingSystemTest {
         assertFalse(bookingResult.pointsUsed);
     }
 
+    @Test
+    void test_bookFlight_WHEN_booking_against_inventory() {
+        final var flightInventory = new FlightInventory();
+        flightInventory.addFlight("AZ100", 3);
 
+        final var bookingResult = flightBookingSystem
+                .bookFlight(
+                        flightInventory,
+                        "AZ100",
+                        2,
+                        LocalDateTime.now(),
+                        100,
+                        100,
+                        false,
+                        LocalDateTime.now().plusHours(25),
+                        0
+                );
+        final var rejectedResult = flightBookingSystem
+                .bookFlight(
+                        flightInventory,
+                        "AZ100",
+                        2,
+                        LocalDateTime.now(),
+                        100,
+                        100,
+                        false,
+                        LocalDateTime.now().plusHours(25),
+                        0
+                );
+
+        assertTrue(bookingResult.confirmation);
+        assertEquals(160, bookingResult.totalPrice, 0.01);
+        assertFalse(rejectedResult.confirmation);
+        assertEquals(1, flightInventory.availableSeats("AZ100"));
+    }
+
+    @Test
+    void test_bookFlight_WHEN_cancelling_against_inventory() {
+        final var flightInventory = new FlightInventory();
+        flightInventory.addFlight("AZ100", 3, 1);
+
+        final var bookingResult = flightBookingSystem
+                .bookFlight(
+                        flightInventory,
+                        "AZ100",
+                        2,
+                        LocalDateTime.now(),
+                        100,
+                        100,
+                        true,
+                        LocalDateTime.now().plusHours(49),
+                        0
+                );
+
+        assertFalse(bookingResult.confirmation);
+        assertEquals(160, bookingResult.refundAmount, 0.01);
+        assertEquals(3, flightInventory.availableSeats("AZ100"));
+    }
+
+    @Test
+    void test_bookFlight_WHEN_cancelling_seats_that_were_not_booked() {
+        final var flightInventory = new FlightInventory();
+        flightInventory.addFlight("AZ100", 3, 2);
+
+        final var bookingResult = flightBookingSystem
+                .bookFlight(
+                        flightInventory,
+                        "AZ100",
+                        2,
+                        LocalDateTime.now(),
+                        100,
+                        100,
+                        true,
+                        LocalDateTime.now().plusHours(49),
+                        0
+                );
+
+        assertFalse(bookingResult.confirmation);
+        assertEquals(0, bookingResult.refundAmount, 0.01);
+        assertEquals(2, flightInventory.availableSeats("AZ100"));
+    }
+
+    @Test
+    void test_bookFlight_WHEN_using_epoch_minutes_and_reusable_result() {
+        final var bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+        final var bookingEpochMinute = bookingTime.toEpochSecond(ZoneOffset.UTC) / 60;
+        final var result = new FlightBookingSystem.BookingResult();
+        for (int passengers = 1; passengers < 8; passengers++) {
+            for (int minutes = -90; minutes < 4000; minutes += 17) {
+                for (boolean isCancellation : new boolean[]{false, true}) {
+                    final var expected = flightBookingSystem.bookFlight(passengers, bookingTime, 6, 123.45, 137,
+                            isCancellation, bookingTime.plusMinutes(minutes), passengers * 50);
+                    final var actual = flightBookingSystem.bookFlight(passengers, bookingEpochMinute, 6, 123.45, 137,
+                            isCancellation, bookingEpochMinute + minutes, passengers * 50, result);
+                    assertSame(result, actual);
+                    assertEquals(expected.confirmation, actual.confirmation);
+                    assertEquals(expected.totalPrice, actual.totalPrice);
+                    assertEquals(expected.refundAmount, actual.refundAmount);
+                    assertEquals(expected.pointsUsed, actual.pointsUsed);
+                }
+            }
+        }
+    }
+
+    @Test
+    void test_bookFlight_WHEN_using_epoch_minutes_in_steady_state() {
+        final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final var threadId = Thread.currentThread().getId();
+        final var bookingEpochMinute = LocalDateTime.of(2024, 1, 1, 12, 0).toEpochSecond(ZoneOffset.UTC) / 60;
+        final var result = new FlightBookingSystem.BookingResult();
+        double totalPrice = 0;
+        for (int round = 0; round < 2; round++) {
+            // The first round warms up the code; the second one is measured
+            final var allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 200_000; i++) {
+                totalPrice += flightBookingSystem.bookFlight(1 + i % 7, bookingEpochMinute, 6, 123.45, 137, i % 5 == 0,
+                        bookingEpochMinute + i % 4000, i % 300, result).totalPrice;
+            }
+            final var allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+            if (round == 1) {
+                // Far below one byte per call; reading the counter may allocate a little itself
+                assertTrue(allocated < 4096, allocated + " bytes allocated");
+            }
+        }
+        assertTrue(totalPrice > 0);
+    }
+
+    @Test
+    void test_bookFlight_WHEN_groups_are_seated_on_seat_map() {
+        final var seatMap = new SeatMap(3, 10);
+        final var bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+        seatMap.hold(1);
+
+        final var togetherResult = flightBookingSystem.bookFlight(seatMap, 6, bookingTime, 100, 100,
+                bookingTime.plusHours(30), 0);
+        final var splitResult = flightBookingSystem.bookFlight(seatMap, 11, bookingTime, 100, 100,
+                bookingTime.plusHours(30), 0);
+        final var rejectedResult = flightBookingSystem.bookFlight(seatMap, 13, bookingTime, 100, 100,
+                bookingTime.plusHours(30), 0);
+
+        assertTrue(togetherResult.confirmation);
+        assertEquals(456, togetherResult.totalPrice, 0.01);
+        assertEquals(6, togetherResult.seatHold.seatCount());
+        assertTrue(togetherResult.seatHold.isContiguous());
+        assertTrue(splitResult.confirmation);
+        assertFalse(splitResult.seatHold.isContiguous());
+        assertFalse(rejectedResult.confirmation);
+        assertEquals(12, seatMap.freeSeats());
+    }
+
+    @Test
+    void test_bookFlight_WHEN_points_are_debited_from_ledger() {
+        final var rewardPointsLedger = new RewardPointsLedger();
+        rewardPointsLedger.credit("M1", 1500);
+        final var bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        final var bookingResult = flightBookingSystem.bookFlight(rewardPointsLedger, "M1", 2, bookingTime, 10, 100, 100,
+                false, bookingTime.plusHours(30), 1000);
+        final var uncoveredResult = flightBookingSystem.bookFlight(rewardPointsLedger, "M1", 2, bookingTime, 10, 100,
+                100, false, bookingTime.plusHours(30), 1000);
+        final var rejectedResult = flightBookingSystem.bookFlight(rewardPointsLedger, "M1", 20, bookingTime, 10, 100,
+                100, false, bookingTime.plusHours(30), 500);
+
+        assertTrue(bookingResult.pointsUsed);
+        assertEquals(150, bookingResult.totalPrice, 0.01);
+        assertTrue(uncoveredResult.confirmation);
+        assertFalse(uncoveredResult.pointsUsed);
+        assertEquals(160, uncoveredResult.totalPrice, 0.01);
+        assertFalse(rejectedResult.pointsUsed);
+        assertEquals(500, rewardPointsLedger.balance("M1"));
+        assertEquals(1000, rewardPointsLedger.totalDebited());
+    }
+
+    @Test
+    void test_bookFlight_WHEN_pricing_fails_after_points_are_reserved() {
+        final var rewardPointsLedger = new RewardPointsLedger();
+        rewardPointsLedger.credit("M1", 1500);
+        final var bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        assertThrows(NullPointerException.class, () -> flightBookingSystem.bookFlight(rewardPointsLedger, "M1", 2,
+                bookingTime, 10, 100, 100, false, null, 1000));
+
+        assertEquals(1500, rewardPointsLedger.balance("M1"));
+        assertEquals(0, rewardPointsLedger.totalReserved());
+    }
+
+    @Test
+    void test_bookFlight_WHEN_pricing_fails_after_seats_are_held() {
+        final var seatMap = new SeatMap(3, 10);
+        final var bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        assertThrows(NullPointerException.class, () -> flightBookingSystem.bookFlight(seatMap, 6, bookingTime, 100, 100,
+                null, 0));
+
+        assertEquals(30, seatMap.freeSeats());
+    }
+
+    @Test
+    void test_bookFlight_WHEN_departure_time_is_missing_against_inventory() {
+        final var flightInventory = new FlightInventory();
+        flightInventory.addFlight("AZ100", 10);
+        final var bookingTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        assertThrows(NullPointerException.class, () -> flightBookingSystem.bookFlight(flightInventory, "AZ100", 4,
+                bookingTime, 100, 100, false, null, 0));
+
+        assertEquals(10, flightInventory.availableSeats("AZ100"));
+    }
 }
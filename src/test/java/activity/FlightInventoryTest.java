@@ -0,0 +1,103 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FlightInventoryTest {
+
+    private final FlightInventory flightInventory = new FlightInventory();
+
+    @Test
+    void test_tryReserve_WHEN_there_are_not_enough_seats() {
+        flightInventory.addFlight("AZ100", 4);
+
+        assertTrue(flightInventory.tryReserve("AZ100", 3));
+        assertFalse(flightInventory.tryReserve("AZ100", 2));
+        assertEquals(1, flightInventory.availableSeats("AZ100"));
+    }
+
+    @Test
+    void test_release_WHEN_seats_would_exceed_capacity() {
+        flightInventory.addFlight("AZ100", 4);
+        flightInventory.tryReserve("AZ100", 2);
+
+        assertFalse(flightInventory.release("AZ100", 3));
+        assertTrue(flightInventory.release("AZ100", 2));
+        assertEquals(4, flightInventory.availableSeats("AZ100"));
+    }
+
+    @Test
+    void test_releaseUpTo_WHEN_seats_would_exceed_capacity() {
+        flightInventory.addFlight("AZ100", 4);
+        flightInventory.tryReserve("AZ100", 2);
+
+        assertEquals(2, flightInventory.releaseUpTo("AZ100", 3));
+        assertEquals(0, flightInventory.releaseUpTo("AZ100", 1));
+        assertEquals(4, flightInventory.availableSeats("AZ100"));
+    }
+
+    @Test
+    void test_tryReserveAll_WHEN_one_leg_is_full() {
+        flightInventory.addFlight("AZ100", 10);
+        flightInventory.addFlight("AZ200", 1);
+
+        assertFalse(flightInventory.tryReserveAll(List.of("AZ100", "AZ200"), 2));
+        assertEquals(10, flightInventory.availableSeats("AZ100"));
+        assertEquals(1, flightInventory.availableSeats("AZ200"));
+        assertTrue(flightInventory.tryReserveAll(List.of("AZ100", "AZ200"), 1));
+        assertEquals(9, flightInventory.availableSeats("AZ100"));
+        assertEquals(0, flightInventory.availableSeats("AZ200"));
+    }
+
+    @Test
+    void test_tryReserve_WHEN_flight_is_unknown() {
+        assertThrows(IllegalArgumentException.class, () -> flightInventory.tryReserve("AZ300", 1));
+    }
+
+    @Test
+    void test_tryReserve_WHEN_booking_threads_compete() throws InterruptedException {
+        flightInventory.addFlight("AZ100", 500);
+        final var confirmed = new AtomicInteger();
+        final var start = new CountDownLatch(1);
+        final var executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 2000; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (flightInventory.tryReserve("AZ100", 1)) {
+                    confirmed.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(500, confirmed.get());
+        assertEquals(0, flightInventory.availableSeats("AZ100"));
+    }
+
+    @Test
+    void test_tryReserve_WHEN_seat_count_is_not_positive() {
+        flightInventory.addFlight("AZ100", 10);
+
+        assertThrows(IllegalArgumentException.class, () -> flightInventory.tryReserve("AZ100", -5));
+        assertThrows(IllegalArgumentException.class, () -> flightInventory.reserveUpTo("AZ100", 0));
+        assertThrows(IllegalArgumentException.class, () -> flightInventory.tryReserveAll(List.of("AZ100"), -1));
+        assertThrows(IllegalArgumentException.class, () -> flightInventory.release("AZ100", -1));
+        assertThrows(IllegalArgumentException.class, () -> flightInventory.releaseUpTo("AZ100", -1));
+        assertEquals(10, flightInventory.availableSeats("AZ100"));
+    }
+}
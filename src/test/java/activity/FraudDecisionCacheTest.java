@@ -0,0 +1,133 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FraudDecisionCacheTest {
+
+    private final FraudDetectionEngine fraudDetectionEngine = new FraudDetectionEngine();
+    private final AtomicLong clock = new AtomicLong();
+    private final FraudDecisionCache fraudDecisionCache = new FraudDecisionCache(fraudDetectionEngine, 2,
+            Duration.ofSeconds(30), clock::get);
+    private final LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    void test_checkForFraud_WHEN_transaction_is_retried() {
+        final var transaction = new FraudDetectionSystem.Transaction(100, now, "Campinas");
+
+        final var result = fraudDecisionCache.checkForFraud("account", transaction);
+        final var retriedResult = fraudDecisionCache.checkForFraud("account",
+                new FraudDetectionSystem.Transaction(100, now, "Campinas"));
+
+        assertSame(result, retriedResult);
+        assertEquals(1, fraudDetectionEngine.recentTransactionCount("account"));
+        assertEquals(1, fraudDecisionCache.hitCount());
+        assertEquals(0.5, fraudDecisionCache.hitRate());
+    }
+
+    @Test
+    void test_checkForFraud_WHEN_decision_has_expired() {
+        final var transaction = new FraudDetectionSystem.Transaction(100, now, "Campinas");
+        final var result = fraudDecisionCache.checkForFraud("account", transaction);
+
+        clock.addAndGet(Duration.ofSeconds(31).toNanos());
+
+        assertNotSame(result, fraudDecisionCache.checkForFraud("account", transaction));
+        assertEquals(2, fraudDecisionCache.missCount());
+        assertEquals(1, fraudDetectionEngine.recentTransactionCount("account"));
+    }
+
+    @Test
+    void test_checkForFraud_WHEN_blacklist_changes() {
+        final var transaction = new FraudDetectionSystem.Transaction(100, now, "Campinas");
+        final var result = fraudDecisionCache.checkForFraud("account", transaction);
+
+        fraudDetectionEngine.setBlacklist(LocationBlacklist.of(List.of("Campinas")));
+        final var blacklistedResult = fraudDecisionCache.checkForFraud("account", transaction);
+
+        assertFalse(result.isBlocked);
+        assertTrue(blacklistedResult.isBlocked);
+        assertEquals(100, blacklistedResult.riskScore);
+        assertEquals(0, fraudDecisionCache.hitCount());
+    }
+
+    @Test
+    void test_checkForFraud_WHEN_unrelated_blacklist_replaces_the_one_a_retry_was_decided_with() {
+        for (int i = 0; i < 10; i++) {
+            fraudDetectionEngine.record("account", new FraudDetectionSystem.Transaction(100, now.minusMinutes(10 - i), "Campinas"));
+        }
+        final var transaction = new FraudDetectionSystem.Transaction(100, now, "Campinas");
+        final var result = fraudDecisionCache.checkForFraud("account", transaction);
+
+        fraudDetectionEngine.setBlacklist(LocationBlacklist.of(List.of("SomewhereElse")));
+        final var retriedResult = fraudDecisionCache.checkForFraud("account", transaction);
+
+        assertFalse(result.isBlocked);
+        assertFalse(retriedResult.isBlocked);
+        assertEquals(0, retriedResult.riskScore);
+        assertEquals(11, fraudDetectionEngine.recentTransactionCount("account"));
+    }
+
+    @Test
+    void test_checkForFraud_WHEN_cache_is_full() {
+        for (int i = 0; i < 3; i++) {
+            fraudDecisionCache.checkForFraud("account", new FraudDetectionSystem.Transaction(100, now.plusMinutes(i), "Campinas"));
+            clock.incrementAndGet();
+        }
+
+        assertEquals(2, fraudDecisionCache.size());
+        fraudDecisionCache.checkForFraud("account", new FraudDetectionSystem.Transaction(100, now.plusMinutes(2), "Campinas"));
+        assertEquals(1, fraudDecisionCache.hitCount());
+    }
+
+    @Test
+    void test_invalidateAll_WHEN_decisions_are_cached() {
+        final var transaction = new FraudDetectionSystem.Transaction(100, now, "Campinas");
+        fraudDecisionCache.checkForFraud("account", transaction);
+        fraudDecisionCache.checkForFraud("other", transaction);
+
+        fraudDecisionCache.invalidate("other");
+        assertEquals(1, fraudDecisionCache.size());
+        fraudDecisionCache.invalidateAll();
+
+        assertEquals(0, fraudDecisionCache.size());
+    }
+
+    @Test
+    void test_checkForFraud_WHEN_retries_are_concurrent() throws InterruptedException {
+        final var start = new CountDownLatch(1);
+        final var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 100; i++) {
+                    fraudDecisionCache.checkForFraud("account", new FraudDetectionSystem.Transaction(100, now, "Campinas"));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, fraudDetectionEngine.recentTransactionCount("account"));
+        assertEquals(1, fraudDecisionCache.missCount());
+        assertEquals(799, fraudDecisionCache.hitCount());
+    }
+}
@@ -0,0 +1,86 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FraudDetectionEngineTest {
+
+    private final FraudDetectionEngine fraudDetectionEngine = new FraudDetectionEngine();
+
+    @Test
+    void test_checkForFraud_WHEN_lots_of_transactions_in_short_time() {
+        final var start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < 11; i++) {
+            fraudDetectionEngine.record("account", new FraudDetectionSystem.Transaction(10, start.plusMinutes(i), "location"));
+        }
+        final var checkResult = fraudDetectionEngine.checkForFraud(
+                "account",
+                new FraudDetectionSystem.Transaction(10, start.plusMinutes(11), "location"),
+                new ArrayList<>()
+        );
+        assertFalse(checkResult.isFraudulent);
+        assertTrue(checkResult.isBlocked);
+        assertFalse(checkResult.verificationRequired);
+        assertEquals(30, checkResult.riskScore);
+    }
+
+    @Test
+    void test_checkForFraud_WHEN_old_transactions_leave_the_window() {
+        final var start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        for (int i = 0; i < 20; i++) {
+            fraudDetectionEngine.record("account", new FraudDetectionSystem.Transaction(10, start.plusMinutes(i), "location"));
+        }
+        final var checkResult = fraudDetectionEngine.checkForFraud(
+                "account",
+                new FraudDetectionSystem.Transaction(10, start.plusMinutes(70), "location"),
+                new ArrayList<>()
+        );
+        assertFalse(checkResult.isBlocked);
+        assertEquals(0, checkResult.riskScore);
+        assertEquals(11, fraudDetectionEngine.recentTransactionCount("account"));
+    }
+
+    @Test
+    void test_checkForFraud_WHEN_accounts_are_independent() {
+        final var now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        fraudDetectionEngine.record("account_1", new FraudDetectionSystem.Transaction(10, now, "location_1"));
+        final var checkResult = fraudDetectionEngine.checkForFraud(
+                "account_2",
+                new FraudDetectionSystem.Transaction(10, now.plusMinutes(1), "location_2"),
+                new ArrayList<>()
+        );
+        assertFalse(checkResult.isFraudulent);
+        assertEquals(0, checkResult.riskScore);
+    }
+
+    @Test
+    void test_checkForFraud_WHEN_compared_with_full_history_scan() {
+        final var fraudDetectionSystem = new FraudDetectionSystem();
+        final var random = new Random(42);
+        final var blacklistedLocations = List.of("location_3");
+        final var history = new ArrayList<FraudDetectionSystem.Transaction>();
+        var timestamp = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 2000; i++) {
+            timestamp = timestamp.plusSeconds(random.nextInt(900));
+            final var transaction = new FraudDetectionSystem.Transaction(
+                    random.nextInt(12000),
+                    timestamp,
+                    "location_" + random.nextInt(4)
+            );
+            final var expected = fraudDetectionSystem.checkForFraud(transaction, history, blacklistedLocations);
+            final var actual = fraudDetectionEngine.checkForFraud("account", transaction, blacklistedLocations);
+            assertEquals(expected.isFraudulent, actual.isFraudulent);
+            assertEquals(expected.isBlocked, actual.isBlocked);
+            assertEquals(expected.verificationRequired, actual.verificationRequired);
+            assertEquals(expected.riskScore, actual.riskScore);
+            history.add(transaction);
+        }
+    }
+}
@@ -2,9 +2,12 @@ package activity;
 
 import org.junit.jupiter.api.Test;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -124,4 +127,137 @@ public class FraudDetectionSystemTest {
         assertFalse(checkResult.verificationRequired);
         assertEquals(100, checkResult.riskScore);
     }
-}
\ No newline at end of file
+
+    @Test
+    void test_checkForFraud_WHEN_location_is_in_blacklist_index(){
+        final var currentTransaction = new FraudDetectionSystem.Transaction(
+                10,
+                LocalDateTime.now(),
+                "blacklisted_location"
+        );
+        final var blacklist = LocationBlacklist.of(List.of("blacklisted_location"));
+        final var checkResult = fraudDetectionSystem
+                .checkForFraud(
+                        currentTransaction,
+                        new ArrayList<>(),
+                        blacklist
+                );
+        assertFalse(checkResult.isFraudulent);
+        assertTrue(checkResult.isBlocked);
+        assertFalse(checkResult.verificationRequired);
+        assertEquals(100, checkResult.riskScore);
+    }
+
+    @Test
+    void test_checkForFraudBatch_WHEN_compared_with_checkForFraud(){
+        final var locationDictionary = new LocationDictionary();
+        final var blacklistedLocations = List.of("location_3");
+        final var random = new Random(7);
+        final int size = 500;
+        final var amounts = new double[size];
+        final var epochMillis = new long[size];
+        final var locationIds = new int[size];
+        final var transactions = new ArrayList<FraudDetectionSystem.Transaction>();
+        var timestamp = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < size; i++) {
+            timestamp = timestamp.plusSeconds(random.nextInt(600));
+            final var location = "location_" + random.nextInt(4);
+            amounts[i] = random.nextInt(12000);
+            epochMillis[i] = timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+            locationIds[i] = locationDictionary.intern(location);
+            transactions.add(new FraudDetectionSystem.Transaction(amounts[i], timestamp, location));
+        }
+
+        final var riskScores = new int[size];
+        final var flags = new byte[size];
+        fraudDetectionSystem.checkForFraudBatch(amounts, epochMillis, locationIds,
+                locationDictionary.idsOf(blacklistedLocations), riskScores, flags);
+
+        for (int i = 0; i < size; i++) {
+            final var checkResult = fraudDetectionSystem
+                    .checkForFraud(
+                            transactions.get(i),
+                            transactions.subList(0, i),
+                            blacklistedLocations
+                    );
+            assertEquals(checkResult.riskScore, riskScores[i]);
+            assertEquals(checkResult.isFraudulent, (flags[i] & FraudDetectionSystem.FLAG_FRAUDULENT) != 0);
+            assertEquals(checkResult.isBlocked, (flags[i] & FraudDetectionSystem.FLAG_BLOCKED) != 0);
+            assertEquals(checkResult.verificationRequired, (flags[i] & FraudDetectionSystem.FLAG_VERIFICATION_REQUIRED) != 0);
+        }
+    }
+
+    @Test
+    void test_checkForFraud_WHEN_extra_rule_is_registered(){
+        final var ruleEngine = FraudRuleEngine.withDefaultRules();
+        final var system = new FraudDetectionSystem(ruleEngine);
+        system.registerRule(new FraudRule() {
+            @Override
+            public String name() {
+                return "round_amount";
+            }
+
+            @Override
+            public int cost() {
+                return 0;
+            }
+
+            @Override
+            public int affects() {
+                return FraudDetectionSystem.FLAG_VERIFICATION_REQUIRED | FraudRuleEngine.Verdict.RISK_SCORE;
+            }
+
+            @Override
+            public boolean evaluate(FraudRuleEngine.Context context, FraudRuleEngine.Verdict verdict) {
+                if (context.currentTransaction.amount % 1000 == 0) {
+                    verdict.flag(FraudDetectionSystem.FLAG_VERIFICATION_REQUIRED);
+                    verdict.addRisk(5);
+                    return true;
+                }
+                return false;
+            }
+        });
+        final var currentTransaction = new FraudDetectionSystem.Transaction(
+                5000,
+                LocalDateTime.now(),
+                "location"
+        );
+        final var checkResult = system
+                .checkForFraud(
+                        currentTransaction,
+                        new ArrayList<>(),
+                        new ArrayList<>()
+                );
+        assertFalse(checkResult.isFraudulent);
+        assertFalse(checkResult.isBlocked);
+        assertTrue(checkResult.verificationRequired);
+        assertEquals(5, checkResult.riskScore);
+        assertEquals("round_amount", ruleEngine.rules().get(0).name());
+    }
+
+    @Test
+    void test_checkForFraud_WHEN_blacklisted_transaction_has_a_long_history(){
+        final var currentTransaction = new FraudDetectionSystem.Transaction(
+                20000,
+                LocalDateTime.now(),
+                "blacklisted_location"
+        );
+        final var pastTransactions = new ArrayList<FraudDetectionSystem.Transaction>() {
+            @Override
+            public Iterator<FraudDetectionSystem.Transaction> iterator() {
+                throw new AssertionError("history should not be scanned once the blacklist has decided");
+            }
+        };
+        pastTransactions.add(new FraudDetectionSystem.Transaction(10, LocalDateTime.now(), "location"));
+        final var checkResult = fraudDetectionSystem
+                .checkForFraud(
+                        currentTransaction,
+                        pastTransactions,
+                        List.of("blacklisted_location")
+                );
+        assertTrue(checkResult.isFraudulent);
+        assertTrue(checkResult.isBlocked);
+        assertTrue(checkResult.verificationRequired);
+        assertEquals(100, checkResult.riskScore);
+    }
+}
@@ -0,0 +1,114 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FraudStreamProcessorTest {
+
+    @Test
+    void test_stream_WHEN_accounts_are_interleaved() throws InterruptedException {
+        final var processor = new FraudStreamProcessor(new FraudDetectionEngine(), 4, 16);
+        final var received = new ConcurrentHashMap<String, List<FraudStreamProcessor.ScoredTransaction>>();
+        final var completed = new CountDownLatch(1);
+        processor.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(FraudStreamProcessor.ScoredTransaction item) {
+                received.computeIfAbsent(item.accountTransaction.accountId, id -> new ArrayList<>()).add(item);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completed.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+                completed.countDown();
+            }
+        });
+
+        final Map<String, List<FraudDetectionSystem.Transaction>> sent = new HashMap<>();
+        final var start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        try (var publisher = new SubmissionPublisher<FraudDetectionSystem.AccountTransaction>()) {
+            publisher.subscribe(processor);
+            for (int i = 0; i < 1000; i++) {
+                final var accountId = "account_" + (i % 7);
+                final var transaction = new FraudDetectionSystem.Transaction(10, start.plusSeconds(i), "location");
+                sent.computeIfAbsent(accountId, id -> new ArrayList<>()).add(transaction);
+                publisher.submit(new FraudDetectionSystem.AccountTransaction(accountId, transaction));
+            }
+        }
+
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        assertEquals(sent.keySet(), received.keySet());
+        sent.forEach((accountId, transactions) -> {
+            final var scored = received.get(accountId);
+            assertEquals(transactions.size(), scored.size());
+            for (int i = 0; i < transactions.size(); i++) {
+                assertTrue(transactions.get(i) == scored.get(i).accountTransaction.transaction);
+            }
+            // Every account quickly exceeds ten transactions per hour
+            assertTrue(scored.get(scored.size() - 1).result.isBlocked);
+        });
+    }
+
+    @Test
+    void test_stream_WHEN_scoring_fails() throws InterruptedException {
+        final var processor = new FraudStreamProcessor(new FraudDetectionEngine(), 4, 16);
+        final var failed = new CountDownLatch(1);
+        processor.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(FraudStreamProcessor.ScoredTransaction item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                failed.countDown();
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        final var start = LocalDateTime.of(2024, 1, 1, 12, 0);
+        final var upstream = new SubmissionPublisher<FraudDetectionSystem.AccountTransaction>();
+        upstream.subscribe(processor);
+        for (int i = 0; i < 100; i++) {
+            // A transaction without data cannot be scored
+            final var transaction = i == 50 ? null : new FraudDetectionSystem.Transaction(10, start.plusSeconds(i), "location");
+            upstream.submit(new FraudDetectionSystem.AccountTransaction("account_" + (i % 7), transaction));
+        }
+
+        // Upstream is cancelled and never completes, yet downstream fails and the lane threads exit
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        assertTrue(processor.isClosed());
+        assertTrue(processor.awaitLanes(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,71 @@
+package activity;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ImpossibleTravelRuleTest {
+
+    private final FraudDetectionSystem fraudDetectionSystem = new FraudDetectionSystem();
+    private final LocationResolver resolver = new LocationResolver(new LocationDictionary(), 100);
+    private final LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        resolver.add("Campinas", -22.9099, -47.0626);
+        resolver.add("Sao Paulo", -23.5505, -46.6333);
+        resolver.add("Paris", 48.8566, 2.3522);
+        fraudDetectionSystem.registerRule(new ImpossibleTravelRule(resolver, 900));
+    }
+
+    @Test
+    void test_checkForFraud_WHEN_travel_is_impossible() {
+        final var previousTransactions = List.of(new FraudDetectionSystem.Transaction(100, now.minusHours(2), "Campinas"));
+
+        final var result = fraudDetectionSystem.checkForFraud(new FraudDetectionSystem.Transaction(100, now, "Paris"),
+                previousTransactions, List.of());
+
+        assertTrue(result.isFraudulent);
+        assertTrue(result.verificationRequired);
+        assertFalse(result.isBlocked);
+        assertEquals(40, result.riskScore);
+    }
+
+    @Test
+    void test_checkForFraud_WHEN_travel_is_possible() {
+        final var previousTransactions = List.of(new FraudDetectionSystem.Transaction(100, now.minusHours(2), "Campinas"));
+
+        final var result = fraudDetectionSystem.checkForFraud(new FraudDetectionSystem.Transaction(100, now, "Sao Paulo"),
+                previousTransactions, List.of());
+
+        assertFalse(result.isFraudulent);
+        assertEquals(0, result.riskScore);
+    }
+
+    @Test
+    void test_checkForFraud_WHEN_transactions_are_simultaneous_in_coordinate_literals() {
+        final var previousTransactions = List.of(new FraudDetectionSystem.Transaction(100, now, "-22.9099,-47.0626"));
+
+        final var result = fraudDetectionSystem.checkForFraud(new FraudDetectionSystem.Transaction(100, now, "-23.5505,-46.6333"),
+                previousTransactions, List.of());
+
+        assertTrue(result.isFraudulent);
+        // The location-change rule fires as well
+        assertEquals(60, result.riskScore);
+    }
+
+    @Test
+    void test_checkForFraud_WHEN_location_is_unknown() {
+        final var previousTransactions = List.of(new FraudDetectionSystem.Transaction(100, now.minusHours(2), "Campinas"));
+
+        final var result = fraudDetectionSystem.checkForFraud(new FraudDetectionSystem.Transaction(100, now, "Atlantis"),
+                previousTransactions, List.of());
+
+        assertFalse(result.isFraudulent);
+    }
+}
@@ -0,0 +1,36 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocationBlacklistTest {
+
+    @Test
+    void test_contains_WHEN_location_is_blacklisted() {
+        final var locations = new ArrayList<String>();
+        for (int i = 0; i < 100000; i++) {
+            locations.add("location_" + i);
+        }
+        final var blacklist = LocationBlacklist.of(locations);
+
+        assertEquals(100000, blacklist.size());
+        for (String location : locations) {
+            assertTrue(blacklist.contains(location));
+        }
+    }
+
+    @Test
+    void test_contains_WHEN_location_is_not_blacklisted() {
+        final var blacklist = LocationBlacklist.of(List.of("location_1", "location_2", "location_1"));
+
+        assertEquals(2, blacklist.size());
+        assertFalse(blacklist.contains("location_3"));
+        assertFalse(blacklist.contains(""));
+        assertFalse(LocationBlacklist.empty().contains("location_1"));
+    }
+}
@@ -0,0 +1,33 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocationDictionaryTest {
+
+    private final LocationDictionary locationDictionary = new LocationDictionary();
+
+    @Test
+    void test_intern_WHEN_location_is_interned_twice() {
+        final int id = locationDictionary.intern("location_1");
+
+        assertEquals(id, locationDictionary.intern("location_1"));
+        assertEquals(id + 1, locationDictionary.intern("location_2"));
+        assertEquals("location_1", locationDictionary.location(id));
+        assertEquals(2, locationDictionary.size());
+    }
+
+    @Test
+    void test_idsOf_WHEN_locations_are_blacklisted() {
+        final int id = locationDictionary.intern("location_1");
+        final var blacklistedIds = locationDictionary.idsOf(List.of("location_2"));
+
+        assertFalse(blacklistedIds.get(id));
+        assertTrue(blacklistedIds.get(locationDictionary.idOf("location_2")));
+        assertEquals(-1, locationDictionary.idOf("location_3"));
+    }
+}
@@ -0,0 +1,105 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocationResolverTest {
+
+    @TempDir
+    Path directory;
+
+    private LocationResolver load(String dataset) throws IOException {
+        final var path = directory.resolve("locations.csv");
+        Files.writeString(path, dataset);
+        return LocationResolver.load(path, new LocationDictionary(), 2);
+    }
+
+    @Test
+    void test_resolve_WHEN_location_is_in_dataset() throws IOException {
+        final var resolver = load("# name,latitude,longitude\nCampinas,-22.9099,-47.0626\n\nParis, France,48.8566,2.3522\n");
+
+        final var campinas = resolver.resolve("Campinas");
+        final var paris = resolver.resolve("Paris, France");
+
+        assertTrue(campinas.isKnown());
+        assertEquals(resolver.dictionary().idOf("Campinas"), campinas.id);
+        assertEquals(48.8566, paris.latitude);
+        assertEquals(9362, campinas.distanceKm(paris), 5);
+    }
+
+    @Test
+    void test_resolve_WHEN_location_is_a_coordinate_literal() throws IOException {
+        final var resolver = load("Campinas,-22.9099,-47.0626\n");
+
+        final var location = resolver.resolve("-23.5505, -46.6333");
+
+        assertTrue(location.isKnown());
+        assertEquals(-1, location.id);
+        assertEquals(-46.6333, location.longitude);
+        assertEquals(1, resolver.dictionary().size());
+    }
+
+    @Test
+    void test_resolve_WHEN_location_is_unknown() throws IOException {
+        final var resolver = load("Campinas,-22.9099,-47.0626\n");
+
+        assertFalse(resolver.resolve("Atlantis").isKnown());
+        assertFalse(resolver.resolve("91,0").isKnown());
+        assertFalse(resolver.resolve("1,2,3").isKnown());
+    }
+
+    @Test
+    void test_resolve_WHEN_location_is_cached() throws IOException {
+        final var resolver = load("Campinas,-22.9099,-47.0626\n");
+
+        final var campinas = resolver.resolve("Campinas");
+        final var saoPaulo = resolver.resolve("-23.5505,-46.6333");
+        assertSame(campinas, resolver.resolve("Campinas"));
+        assertSame(saoPaulo, resolver.resolve("-23.5505,-46.6333"));
+        resolver.resolve("48.8566,2.3522");
+        resolver.resolve("-12.0464,-77.0428");
+
+        // Dataset names are not cached; the cache keeps the newest literal and one other
+        assertEquals(2, resolver.cacheSize());
+        assertEquals(1, resolver.hitCount());
+        assertEquals(3, resolver.missCount());
+        assertSame(resolver.resolve("-12.0464,-77.0428"), resolver.resolve("-12.0464,-77.0428"));
+    }
+
+    @Test
+    void test_add_WHEN_location_was_resolved_as_unknown() throws IOException {
+        final var resolver = load("Campinas,-22.9099,-47.0626\n");
+        assertFalse(resolver.resolve("Lima").isKnown());
+
+        resolver.add("Lima", -12.0464, -77.0428);
+
+        assertTrue(resolver.resolve("Lima").isKnown());
+        assertEquals(0, resolver.cacheSize());
+    }
+
+    @Test
+    void test_add_WHEN_location_moves() throws IOException {
+        final var resolver = load("Campinas,-22.9099,-47.0626\n");
+        resolver.resolve("Campinas");
+
+        resolver.add("Campinas", -22.9, -47.06);
+
+        assertEquals(-22.9, resolver.resolve("Campinas").latitude);
+    }
+
+    @Test
+    void test_load_WHEN_dataset_is_malformed() {
+        assertThrows(IOException.class, () -> load("Campinas,south,west\n"));
+        assertThrows(IOException.class, () -> load("Campinas\n"));
+        assertThrows(IOException.class, () -> load("Campinas,-122.9,-47.06\n"));
+    }
+}
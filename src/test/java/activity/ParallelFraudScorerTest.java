@@ -0,0 +1,46 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ParallelFraudScorerTest {
+
+    @Test
+    void test_score_WHEN_compared_with_sequential_scoring() {
+        final var fraudDetectionSystem = new FraudDetectionSystem();
+        final var blacklistedLocations = List.of("location_4");
+        final var random = new Random(11);
+        final var transactions = new ArrayList<FraudDetectionSystem.AccountTransaction>();
+        var timestamp = LocalDateTime.of(2024, 1, 1, 0, 0);
+        for (int i = 0; i < 5000; i++) {
+            timestamp = timestamp.plusSeconds(random.nextInt(60));
+            transactions.add(new FraudDetectionSystem.AccountTransaction(
+                    "account_" + random.nextInt(50),
+                    new FraudDetectionSystem.Transaction(random.nextInt(12000), timestamp, "location_" + random.nextInt(5))
+            ));
+        }
+
+        final FraudDetectionSystem.FraudCheckResult[] results;
+        try (var scorer = new ParallelFraudScorer(4)) {
+            results = scorer.score(transactions, LocationBlacklist.of(blacklistedLocations));
+        }
+
+        final var histories = new HashMap<String, List<FraudDetectionSystem.Transaction>>();
+        for (int i = 0; i < transactions.size(); i++) {
+            final var accountTransaction = transactions.get(i);
+            final var history = histories.computeIfAbsent(accountTransaction.accountId, id -> new ArrayList<>());
+            final var expected = fraudDetectionSystem.checkForFraud(accountTransaction.transaction, history, blacklistedLocations);
+            assertEquals(expected.isFraudulent, results[i].isFraudulent);
+            assertEquals(expected.isBlocked, results[i].isBlocked);
+            assertEquals(expected.verificationRequired, results[i].verificationRequired);
+            assertEquals(expected.riskScore, results[i].riskScore);
+            history.add(accountTransaction.transaction);
+        }
+    }
+}
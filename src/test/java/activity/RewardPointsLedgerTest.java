@@ -0,0 +1,70 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RewardPointsLedgerTest {
+
+    private final RewardPointsLedger rewardPointsLedger = new RewardPointsLedger();
+
+    @Test
+    void test_reserve_WHEN_balance_is_not_enough() {
+        rewardPointsLedger.credit("M1", 500);
+
+        final var reservation = rewardPointsLedger.reserve("M1", 300);
+
+        assertNull(rewardPointsLedger.reserve("M1", 300));
+        assertNull(rewardPointsLedger.reserve("M2", 1));
+        assertEquals(200, rewardPointsLedger.balance("M1"));
+        assertEquals(300, rewardPointsLedger.totalReserved());
+        assertTrue(rewardPointsLedger.commit(reservation));
+        assertEquals(200, rewardPointsLedger.totalBalance());
+        assertEquals(300, rewardPointsLedger.totalDebited());
+    }
+
+    @Test
+    void test_cancel_WHEN_reservation_is_pending() {
+        rewardPointsLedger.credit("M1", 500);
+        final var reservation = rewardPointsLedger.reserve("M1", 300);
+
+        assertTrue(rewardPointsLedger.cancel(reservation));
+
+        assertFalse(rewardPointsLedger.commit(reservation));
+        assertFalse(rewardPointsLedger.cancel(reservation));
+        assertEquals(500, rewardPointsLedger.balance("M1"));
+        assertEquals(0, rewardPointsLedger.totalReserved());
+        assertEquals(0, rewardPointsLedger.totalDebited());
+    }
+
+    @Test
+    void test_reserve_WHEN_threads_spend_the_same_points() throws InterruptedException, ExecutionException {
+        rewardPointsLedger.credit("M1", 1000);
+        final var executor = Executors.newFixedThreadPool(8);
+        final var reservations = new ArrayList<Future<RewardPointsLedger.PointsReservation>>();
+        try {
+            for (int i = 0; i < 100; i++) {
+                reservations.add(executor.submit(() -> rewardPointsLedger.reserve("M1", 30)));
+            }
+            int reserved = 0;
+            for (var reservation : reservations) {
+                if (reservation.get() != null) {
+                    reserved++;
+                    rewardPointsLedger.commit(reservation.get());
+                }
+            }
+            assertEquals(33, reserved);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(10, rewardPointsLedger.balance("M1"));
+        assertEquals(990, rewardPointsLedger.totalDebited());
+    }
+}
@@ -0,0 +1,75 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScheduleIndexTest {
+
+    private final LocalDateTime currentTime = LocalDateTime.of(2021, 1, 1, 12, 0);
+
+    @Test
+    void test_dueAt_WHEN_schedules_are_added_and_removed() {
+        // Given
+        var ovenSchedule = new SmartEnergyManagementSystem.DeviceSchedule("Oven", currentTime);
+        var washerSchedule = new SmartEnergyManagementSystem.DeviceSchedule("Washer", currentTime);
+        var laterSchedule = new SmartEnergyManagementSystem.DeviceSchedule("Dryer", currentTime.plusHours(1));
+        var scheduleIndex = new ScheduleIndex(List.of(ovenSchedule, washerSchedule, laterSchedule));
+
+        // When
+        boolean removed = scheduleIndex.remove(washerSchedule);
+
+        // Then
+        assertTrue(removed);
+        assertFalse(scheduleIndex.remove(washerSchedule));
+        assertEquals(List.of(ovenSchedule), scheduleIndex.dueAt(currentTime));
+        assertEquals(List.of(laterSchedule), scheduleIndex.dueAt(currentTime.plusHours(1)));
+        assertTrue(scheduleIndex.dueAt(currentTime.plusMinutes(1)).isEmpty());
+        assertEquals(2, scheduleIndex.size());
+    }
+
+    @Test
+    void test_removeBefore_WHEN_clock_advances() {
+        // Given
+        var scheduleIndex = new ScheduleIndex();
+        for (int hour = 0; hour < 24; hour++) {
+            scheduleIndex.add(new SmartEnergyManagementSystem.DeviceSchedule("Oven", currentTime.withHour(hour)));
+        }
+
+        // When
+        int removed = scheduleIndex.removeBefore(currentTime);
+
+        // Then
+        assertEquals(12, removed);
+        assertEquals(12, scheduleIndex.size());
+        assertEquals(1, scheduleIndex.dueAt(currentTime).size());
+    }
+
+    @Test
+    void test_manageEnergy_WHEN_device_is_scheduled_in_index() {
+        // Given
+        var scheduleIndex = new ScheduleIndex(List.of(
+                new SmartEnergyManagementSystem.DeviceSchedule("Oven", currentTime),
+                new SmartEnergyManagementSystem.DeviceSchedule("Washer", currentTime.plusDays(1))
+        ));
+
+        // When
+        var result = new SmartEnergyManagementSystem().manageEnergy(
+                0.15, 0.1, Map.of("Oven", 3), currentTime, 22.0, new double[]{20.0, 25.0},
+                100.0, 50.0, scheduleIndex
+        );
+
+        // Then
+        final var expectedDeviceStatus = Map.of(
+                "Oven", true,
+                "Heating", false,
+                "Cooling", false
+        );
+        assertEquals(expectedDeviceStatus, result.deviceStatus);
+        assertTrue(result.energySavingMode);
+    }
+}
@@ -0,0 +1,137 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SeatMapTest {
+
+    @Test
+    void test_holdTogether_WHEN_row_has_a_free_block() {
+        final var seatMap = new SeatMap(2, 10);
+        seatMap.hold(2);
+        final var middle = seatMap.holdTogether(1);
+        seatMap.holdTogether(3);
+
+        final var block = seatMap.holdTogether(4);
+
+        assertEquals(1L << 2, middle.seats[0]);
+        assertTrue(block.isContiguous());
+        assertEquals(0, block.rows[0]);
+        assertEquals(0b1111L << 6, block.seats[0]);
+        assertEquals(10, seatMap.freeSeats());
+    }
+
+    @Test
+    void test_holdTogether_WHEN_free_seats_are_scattered() {
+        final var seatMap = new SeatMap(2, 4);
+        final var held = new ArrayList<SeatMap.SeatHold>();
+        for (int i = 0; i < 8; i++) {
+            held.add(seatMap.hold(1));
+        }
+        seatMap.release(held.get(1));
+        seatMap.release(held.get(3));
+        seatMap.release(held.get(6));
+
+        assertNull(seatMap.holdTogether(2));
+        final var hold = seatMap.hold(3);
+        assertFalse(hold.isContiguous());
+        assertEquals(3, hold.seatCount());
+        assertEquals(0, seatMap.freeSeats());
+    }
+
+    @Test
+    void test_hold_WHEN_seats_are_not_enough() {
+        final var seatMap = new SeatMap(2, 3);
+        seatMap.hold(4);
+
+        assertNull(seatMap.hold(3));
+        assertNull(seatMap.holdTogether(4));
+        assertEquals(2, seatMap.freeSeats());
+    }
+
+    @Test
+    void test_release_WHEN_hold_is_released_twice() {
+        final var seatMap = new SeatMap(1, 4);
+        final var first = seatMap.holdTogether(2);
+        assertTrue(seatMap.release(first));
+        final var second = seatMap.holdTogether(2);
+
+        assertFalse(seatMap.release(first));
+        assertEquals(2, seatMap.freeSeats());
+        assertTrue(seatMap.isTaken(0, 0));
+        assertTrue(seatMap.release(second));
+        assertEquals(4, seatMap.freeSeats());
+    }
+
+    @Test
+    void test_holdTogether_WHEN_row_has_64_seats() {
+        final var seatMap = new SeatMap(1, 64);
+
+        final var block = seatMap.holdTogether(64);
+
+        assertEquals(-1L, block.seats[0]);
+        assertTrue(block.isContiguous());
+        assertEquals(0, seatMap.freeSeats());
+        seatMap.release(block);
+        assertEquals(64, seatMap.freeSeats());
+    }
+
+    @Test
+    void test_blockStarts_WHEN_compared_with_seat_by_seat_scan() {
+        final var random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            final var free = random.nextLong() | random.nextLong();
+            final var seats = 1 + random.nextInt(64);
+            long expected = 0;
+            for (int start = 0; start + seats <= 64; start++) {
+                final var block = seats == 64 ? -1L : ((1L << seats) - 1) << start;
+                if ((free & block) == block) {
+                    expected |= 1L << start;
+                }
+            }
+            assertEquals(expected, SeatMap.blockStarts(free, seats));
+        }
+    }
+
+    @Test
+    void test_hold_WHEN_threads_compete_for_seats() throws InterruptedException {
+        final var seatMap = new SeatMap(40, 10);
+        final var holds = new ConcurrentLinkedQueue<SeatMap.SeatHold>();
+        final var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                SeatMap.SeatHold hold;
+                while ((hold = seatMap.holdTogether(3)) != null || (hold = seatMap.hold(3)) != null) {
+                    holds.add(hold);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        final var seen = new long[40];
+        for (var hold : holds) {
+            for (int i = 0; i < hold.rows.length; i++) {
+                assertEquals(0, seen[hold.rows[i]] & hold.seats[i]);
+                seen[hold.rows[i]] |= hold.seats[i];
+            }
+        }
+        assertEquals(133, holds.size());
+        assertEquals(1, seatMap.freeSeats());
+    }
+
+    @Test
+    void test_constructor_WHEN_row_is_too_wide() {
+        assertThrows(IllegalArgumentException.class, () -> new SeatMap(10, 65));
+    }
+}
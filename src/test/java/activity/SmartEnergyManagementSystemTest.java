@@ -550,7 +550,36 @@ public class SmartEnergyManagementSystemTest {
         assertEquals(19.0, result.totalEnergyUsed); // Reduced from 21.0 by turning off devices
     }
 
+    @Test
+    void test_manageEnergy_WHEN_energyUsageLimit_exceeded_and_only_high_priority_devices_remain() {
+        // Given
+        double currentPrice = 0.05;
+        double priceThreshold = 0.1;
+        var devicePriorities = Map.of("Security", 1, "Lights", 2, "Appliances", 3);
+        var currentTime = LocalDateTime.of(2021, 1, 1, 12, 0);
+        double currentTemperature = 22.0;
+        double[] desiredTemperatureRange = {20.0, 25.0};
+        double energyUsageLimit = 20.0;
+        double totalEnergyUsedToday = 40.0;
+        List<SmartEnergyManagementSystem.DeviceSchedule> scheduledDevices = emptyList();
 
+        // When
+        var result = smartEnergyManagementSystem.manageEnergy(
+                currentPrice, priceThreshold, devicePriorities, currentTime, currentTemperature, desiredTemperatureRange,
+                energyUsageLimit, totalEnergyUsedToday, scheduledDevices
+        );
 
-
-}
\ No newline at end of file
+        // Then
+        final var expectedDeviceStatus = Map.of(
+                "Security", true,
+                "Lights", false,
+                "Appliances", false,
+                "Heating", false,
+                "Cooling", false
+        );
+        assertEquals(expectedDeviceStatus, result.deviceStatus);
+        assertFalse(result.energySavingMode);
+        assertFalse(result.temperatureRegulationActive);
+        assertEquals(38.0, result.totalEnergyUsed); // Still above the limit, but nothing else can be shed
+    }
+}
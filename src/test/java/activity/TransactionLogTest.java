@@ -0,0 +1,149 @@
+package activity;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransactionLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void test_checkForFraud_WHEN_compared_with_checkForFraud() throws IOException {
+        final var fraudDetectionSystem = new FraudDetectionSystem();
+        final var blacklistedLocations = List.of("location_3");
+        final var histories = new HashMap<Integer, List<FraudDetectionSystem.Transaction>>();
+        final var random = new Random(13);
+        var timestamp = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        try (var transactionLog = new TransactionLog(directory.resolve("transactions.log"), 64)) {
+            final var locationDictionary = transactionLog.locations();
+            final BitSet blacklistedLocationIds = locationDictionary.idsOf(blacklistedLocations);
+            for (int i = 0; i < 3000; i++) {
+                timestamp = timestamp.plusSeconds(random.nextInt(120));
+                final int accountId = random.nextInt(10);
+                final var location = "location_" + random.nextInt(4);
+                final var transaction = new FraudDetectionSystem.Transaction(random.nextInt(12000), timestamp, location);
+                final long epochMillis = timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+                final int locationId = locationDictionary.intern(location);
+                final var history = histories.computeIfAbsent(accountId, id -> new ArrayList<>());
+
+                final var expected = fraudDetectionSystem.checkForFraud(transaction, history, blacklistedLocations);
+                final var actual = transactionLog.checkForFraud(accountId, transaction.amount, epochMillis, locationId,
+                        blacklistedLocationIds);
+                assertEquals(expected.isFraudulent, actual.isFraudulent);
+                assertEquals(expected.isBlocked, actual.isBlocked);
+                assertEquals(expected.verificationRequired, actual.verificationRequired);
+                assertEquals(expected.riskScore, actual.riskScore);
+
+                transactionLog.append(accountId, transaction.amount, epochMillis, locationId);
+                history.add(transaction);
+            }
+        }
+    }
+
+    @Test
+    void test_open_WHEN_log_is_reopened() throws IOException {
+        final var path = directory.resolve("transactions.log");
+        final long now = LocalDateTime.of(2024, 1, 1, 12, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+        try (var transactionLog = new TransactionLog(path, 4)) {
+            for (int i = 0; i < 11; i++) {
+                transactionLog.append(7, 10, now + i * 60_000L, "Paris");
+            }
+        }
+
+        try (var transactionLog = new TransactionLog(path, 4)) {
+            assertEquals(11, transactionLog.size());
+            final var blockedResult = transactionLog.checkForFraud(7, 10, now + 11 * 60_000L, "Paris", new BitSet());
+            final var otherAccountResult = transactionLog.checkForFraud(8, 10, now + 11 * 60_000L, "Paris", new BitSet());
+
+            assertTrue(blockedResult.isBlocked);
+            assertEquals(30, blockedResult.riskScore);
+            assertFalse(otherAccountResult.isBlocked);
+        }
+    }
+
+    @Test
+    void test_open_WHEN_locations_are_interned_in_another_order_after_restart() throws IOException {
+        final var path = directory.resolve("transactions.log");
+        final long now = LocalDateTime.of(2024, 1, 1, 12, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+        try (var transactionLog = new TransactionLog(path, 4)) {
+            transactionLog.locations().intern("Lisbon");
+            transactionLog.append(7, 10, now, "Paris");
+        }
+
+        try (var transactionLog = new TransactionLog(path, 4)) {
+            final var blacklistedLocationIds = transactionLog.locations().idsOf(List.of("Madrid"));
+            final var sameLocationResult = transactionLog.checkForFraud(7, 10, now + 60_000L, "Paris", blacklistedLocationIds);
+            final var otherLocationResult = transactionLog.checkForFraud(7, 10, now + 60_000L, "Lisbon", blacklistedLocationIds);
+            final var blacklistedResult = transactionLog.checkForFraud(7, 10, now + 60_000L, "Madrid", blacklistedLocationIds);
+
+            assertEquals("Paris", transactionLog.locations().location(1));
+            assertFalse(sameLocationResult.isFraudulent);
+            assertTrue(otherLocationResult.isFraudulent);
+            assertEquals(20, otherLocationResult.riskScore);
+            assertTrue(blacklistedResult.isBlocked);
+            assertEquals(100, blacklistedResult.riskScore);
+        }
+    }
+
+    @Test
+    void test_open_WHEN_log_was_not_flushed_before_a_crash() throws IOException {
+        final var path = directory.resolve("transactions.log");
+        final long now = LocalDateTime.of(2024, 1, 1, 12, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+        final var crashed = new TransactionLog(path, 4);
+        for (int i = 0; i < 6; i++) {
+            crashed.append(7, 10, now + i * 60_000L, "Paris");
+        }
+        crashed.flush();
+        for (int i = 6; i < 11; i++) {
+            crashed.append(7, 10, now + i * 60_000L, "Paris");
+        }
+
+        // Reopened without close: the records after the checkpoint are recovered from the mapped file
+        try (var transactionLog = new TransactionLog(path, 4)) {
+            assertEquals(11, transactionLog.size());
+            assertEquals(11, transactionLog.append(9, 10, now + 11 * 60_000L, "Paris"));
+            final var result = transactionLog.checkForFraud(7, 10, now + 12 * 60_000L, "Paris", new BitSet());
+            assertEquals(30, result.riskScore);
+        } finally {
+            crashed.close();
+        }
+    }
+
+    @Test
+    void test_open_WHEN_last_record_is_corrupt() throws IOException {
+        final var path = directory.resolve("transactions.log");
+        final long now = LocalDateTime.of(2024, 1, 1, 12, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+        try (var transactionLog = new TransactionLog(path, 4)) {
+            for (int i = 0; i < 3; i++) {
+                transactionLog.append(7, 10, now + i * 60_000L, "Paris");
+            }
+        }
+        // A record past the checkpoint whose page never reached the disk: the header counts it, its bytes are zero
+        try (var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, 4), 8);
+        }
+
+        try (var transactionLog = new TransactionLog(path, 4)) {
+            assertEquals(3, transactionLog.size());
+            assertEquals(3, transactionLog.append(7, 10, now + 3 * 60_000L, "Paris"));
+        }
+    }
+}